@@ -0,0 +1,203 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import com.example.ordermanagement.infrastructure.concurrent.BackgroundThreads;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Асинхронная доставка событий изменения статуса заказа из outbox в OrderEventHandler.
+// После коммита событие кладется в ограниченную очередь; фоновый поток собирает до batchSize
+// событий, передает их обработчику одной пачкой и помечает опубликованными одним UPDATE.
+// Если очередь переполнена, обработчик упал или приложение остановилось до отметки о публикации,
+// событие остается в outbox неопубликованным и через relayAfter повторно ставится в очередь
+// периодическим relayUnpublished. Доставка - "хотя бы один раз".
+// Обработанная пачка дополнительно публикуется как OrderEventsDispatched.
+// При шардировании событие хранится на шарде своего заказа: отметки о публикации выполняются
+// на шардах событий пачки, неопубликованные события собираются со всех шардов.
+@Component
+public class OrderEventDispatcher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventDispatcher.class);
+
+    static final String QUEUE_DEPTH_GAUGE = "order.events.queue.depth";
+    static final String LAG_TIMER = "order.events.lag";
+    static final String DEFERRED_COUNTER = "order.events.deferred";
+
+    private static final Comparator<OrderOutboxEvent> BY_ID = Comparator.comparing(OrderOutboxEvent::getId);
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderShards orderShards;
+    private final OrderEventHandler handler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BackgroundThreads backgroundThreads;
+    private final int batchSize;
+    private final Duration relayAfter;
+    private final BlockingQueue<OrderOutboxEvent> queue;
+    // События, которые уже стоят в очереди или обрабатываются: relay не ставит их повторно
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Timer lag;
+    private final Counter deferred;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OrderEventDispatcher(OrderOutboxRepository outboxRepository, OrderShards orderShards,
+                                OrderEventHandler handler,
+                                ApplicationEventPublisher eventPublisher, BackgroundThreads backgroundThreads,
+                                MeterRegistry meterRegistry,
+                                @Value("${orders.events.queue-size:1024}") int queueSize,
+                                @Value("${orders.events.batch-size:100}") int batchSize,
+                                @Value("${orders.events.relay-after:10s}") Duration relayAfter) {
+        this.outboxRepository = outboxRepository;
+        this.orderShards = orderShards;
+        this.handler = handler;
+        this.eventPublisher = eventPublisher;
+        this.backgroundThreads = backgroundThreads;
+        this.batchSize = Math.max(1, batchSize);
+        this.relayAfter = relayAfter;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.lag = Timer.builder(LAG_TIMER)
+                .description("Time from the order status change commit to its handling")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.deferred = Counter.builder(DEFERRED_COUNTER)
+                .description("Events left in the outbox because the dispatch queue was full")
+                .register(meterRegistry);
+        Gauge.builder(QUEUE_DEPTH_GAUGE, queue, BlockingQueue::size)
+                .description("Order events waiting for dispatch")
+                .register(meterRegistry);
+    }
+
+    // Ставит событие в очередь, не блокируя вызывающий поток
+    public void submit(OrderOutboxEvent event) {
+        if (!inFlight.add(event.getId())) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            inFlight.remove(event.getId());
+            deferred.increment();
+        }
+    }
+
+    // Повторно ставит в очередь события, которые не были опубликованы за relayAfter
+    @Scheduled(fixedDelayString = "${orders.events.relay-interval-ms:5000}")
+    public void relayUnpublished() {
+        if (!running) {
+            return;
+        }
+        Instant before = Instant.now().minus(relayAfter);
+        PageRequest page = PageRequest.ofSize(queue.remainingCapacity() + 1);
+        List<OrderOutboxEvent> stale = orderShards.mergePageFromEachShard(page, BY_ID,
+                shardPage -> outboxRepository.findByPublishedAtIsNullAndCreatedAtBeforeOrderByIdAsc(before, shardPage));
+        if (!stale.isEmpty()) {
+            logger.info("Relaying {} unpublished order events from the outbox", stale.size());
+            stale.forEach(this::submit);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = backgroundThreads.start("order-event-dispatcher", this::runWorker);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runWorker() {
+        List<OrderOutboxEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // остановка: оставшиеся события доставит relay после перезапуска
+                break;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void markPublished(List<Long> ids, Instant publishedAt) {
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : ids) {
+            idsByShard.computeIfAbsent(orderShards.shardOfOrder(id), shard -> new ArrayList<>()).add(id);
+        }
+        orderShards.onShards(idsByShard.keySet(), false,
+                shard -> outboxRepository.markPublished(idsByShard.get(shard), publishedAt));
+    }
+
+    private void dispatch(List<OrderOutboxEvent> batch) {
+        List<OrderStatusChangedEvent> events = new ArrayList<>(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OrderOutboxEvent event : batch) {
+            events.add(event.toEvent());
+            ids.add(event.getId());
+        }
+        try {
+            handler.handleOrderStatusChangedEvents(events);
+            Instant now = Instant.now();
+            for (OrderOutboxEvent event : batch) {
+                lag.record(Duration.between(event.getCreatedAt(), now));
+            }
+            markPublished(ids, now);
+        } catch (RuntimeException e) {
+            logger.error("Failed to dispatch {} order events, they will be relayed from the outbox: {}",
+                    batch.size(), e.getMessage());
+            return;
+        } finally {
+            ids.forEach(inFlight::remove);
+        }
+        try {
+            eventPublisher.publishEvent(new OrderEventsDispatched(List.copyOf(batch)));
+        } catch (RuntimeException e) {
+            logger.error("Order events listener failed for {} events: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -3,19 +3,23 @@ package com.example.ordermanagement.application.event;
 import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+// Обработчик событий изменения статуса заказа. Вызывается OrderEventDispatcher в фоновом потоке
+// пачками и только для зафиксированных изменений; одно событие может быть доставлено повторно
+// (например, после падения приложения до отметки о публикации), поэтому обработка должна быть идемпотентной.
 @Component
 public class OrderEventHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderEventHandler.class);
 
-    @EventListener
-    public void handleOrderStatusChangedEvent(OrderStatusChangedEvent event) {
-        logger.info("Order status changed: orderId={}, oldStatus={}, newStatus={}",
-                event.getOrderId(), event.getOldStatus(), event.getNewStatus());
-        // Здесь можно добавить дополнительную логику обработки события
+    public void handleOrderStatusChangedEvents(List<OrderStatusChangedEvent> events) {
+        for (OrderStatusChangedEvent event : events) {
+            logger.info("Order status changed: orderId={}, oldStatus={}, newStatus={}",
+                    event.getOrderId(), event.getOldStatus(), event.getNewStatus());
+        }
+        // Здесь можно добавить дополнительную логику обработки событий
     }
 }
-
@@ -0,0 +1,43 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+// Сохраняет OrderStatusChangedEvent в outbox в той же транзакции, что и изменение заказа,
+// и передает его OrderEventDispatcher только после коммита. При откате транзакции
+// не остается ни записи в outbox, ни доставки события.
+@Component
+public class OrderEventOutbox {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderEventDispatcher dispatcher;
+
+    public OrderEventOutbox(OrderOutboxRepository outboxRepository, OrderEventDispatcher dispatcher) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+    }
+
+    // fallbackExecution: событие, опубликованное вне транзакции, сохраняется и передается сразу
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void record(OrderStatusChangedEvent event) {
+        OrderOutboxEvent outboxEvent = outboxRepository.save(OrderOutboxEvent.of(event, Instant.now()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.submit(outboxEvent);
+                }
+            });
+        } else {
+            dispatcher.submit(outboxEvent);
+        }
+    }
+}
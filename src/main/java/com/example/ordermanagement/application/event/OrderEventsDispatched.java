@@ -0,0 +1,11 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+
+import java.util.List;
+
+// Пачка событий из outbox, обработанная OrderEventHandler. Публикуется в потоке OrderEventDispatcher
+// для потребителей, которым нужны id и владелец события (например, поток статусов GET /orders/stream);
+// слушатели не должны блокироваться.
+public record OrderEventsDispatched(List<OrderOutboxEvent> events) {
+}
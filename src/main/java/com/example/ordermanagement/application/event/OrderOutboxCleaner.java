@@ -0,0 +1,58 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Удаление из outbox событий, опубликованных больше retention назад. Неопубликованные события
+// не удаляются: их еще доставит relay OrderEventDispatcher. Опубликованные события нужны потоку
+// статусов (OrderStatusStream) для дочитки по Last-Event-ID, поэтому retention ограничивает,
+// после какого отключения клиент еще получит все пропущенные изменения.
+// Каждая пачка (batchSize событий) удаляется одним DELETE в своей транзакции, шарды разбираются по очереди.
+@Component
+public class OrderOutboxCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxCleaner.class);
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderShards orderShards;
+    private final Duration retention;
+    private final int batchSize;
+
+    public OrderOutboxCleaner(OrderOutboxRepository outboxRepository, OrderShards orderShards,
+                              @Value("${orders.events.retention:7d}") Duration retention,
+                              @Value("${orders.events.purge-batch-size:1000}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.orderShards = orderShards;
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Запуск по расписанию; возвращает количество удаленных событий
+    @Scheduled(fixedDelayString = "${orders.events.purge-interval-ms:3600000}",
+            initialDelayString = "${orders.events.purge-interval-ms:3600000}")
+    public long purgePublished() {
+        Instant before = Instant.now().minus(retention);
+        long total = 0;
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            int batchShard = shard;
+            int deleted;
+            do {
+                deleted = orderShards.onShard(batchShard,
+                        () -> outboxRepository.deletePublishedBefore(before, batchSize));
+                total += deleted;
+            } while (deleted == batchSize);
+        }
+        if (total > 0) {
+            logger.info("Removed {} order events published before {}", total, before);
+        }
+        return total;
+    }
+}
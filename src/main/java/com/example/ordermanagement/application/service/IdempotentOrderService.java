@@ -0,0 +1,170 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.exception.IdempotencyKeyReusedException;
+import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.example.ordermanagement.domain.model.IdempotentRequest;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.UserIdentity;
+import com.example.ordermanagement.domain.repository.IdempotentRequestRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Создание заказа с заголовком Idempotency-Key: клиенты повторяют POST /orders по таймауту, и повтор
+// не должен создавать второй заказ. Первый запрос с ключом создает заказ и в той же транзакции сохраняет
+// ответ (IdempotentRequest); повтор получает сохраненный ответ без проверки и вставки заказа.
+// Ключ действует в пределах пользователя; тот же ключ с другим телом запроса отклоняется.
+// Последние ответы держатся в ограниченном кэше в памяти, остальные читаются из таблицы.
+// Параллельные повторы одного ключа ждут друг друга на блокировке из фиксированного набора (lock striping);
+// повтор, пришедший на другой экземпляр, упирается в первичный ключ таблицы, и его транзакция откатывается.
+// Сохраняются только успешные ответы: отклоненный запрос можно повторить с тем же ключом.
+// Ответы хранятся ttl и затем удаляются периодической очисткой.
+@Service
+public class IdempotentOrderService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotentOrderService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    static final String REPLAYED_COUNTER = "orders.idempotency.replayed";
+
+    private final OrderService orderService;
+    private final IdempotentRequestRepository requestRepository;
+    private final OrderShards orderShards;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, IdempotentRequest> recent;
+    private final ReentrantLock[] locks;
+    private final Counter replayed;
+
+    public IdempotentOrderService(OrderService orderService, IdempotentRequestRepository requestRepository,
+                                  OrderShards orderShards, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${orders.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${orders.idempotency.cache-size:10000}") long cacheSize,
+                                  @Value("${orders.idempotency.lock-stripes:64}") int lockStripes) {
+        this.orderService = orderService;
+        this.requestRepository = requestRepository;
+        this.orderShards = orderShards;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.locks = new ReentrantLock[Math.max(1, lockStripes)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.replayed = Counter.builder(REPLAYED_COUNTER)
+                .description("Order creations answered from a stored Idempotency-Key response")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "orders.idempotency");
+    }
+
+    // Создает заказ не больше одного раза на ключ. request - тело запроса для сверки повторов,
+    // render - ответ клиенту по созданному заказу; он же возвращается на повторы
+    public IdempotentResponse createOrder(String username, String idempotencyKey, String request, Order order,
+                                          Function<Order, String> render) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidOrderException("Idempotency key must contain 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        UserIdentity user = orderService.resolveUser(username);
+        String requestKey = user.id() + ":" + idempotencyKey;
+        String requestHash = sha256(request);
+        ReentrantLock lock = locks[Math.floorMod(requestKey.hashCode(), locks.length)];
+        lock.lock();
+        try {
+            IdempotentRequest stored = find(user, requestKey);
+            if (stored == null) {
+                try {
+                    stored = transactionTemplate.execute(status -> {
+                        Order created = orderService.createOrder(username, order);
+                        IdempotentRequest saved = IdempotentRequest.of(requestKey, requestHash, created.getOrderId(),
+                                render.apply(created), Instant.now());
+                        entityManager.persist(saved);
+                        return saved;
+                    });
+                    recent.put(requestKey, stored);
+                    return new IdempotentResponse(stored.getResponse(), false);
+                } catch (DataIntegrityViolationException e) {
+                    // Тот же ключ одновременно обработал другой экземпляр: его заказ сохранен, этот откатился
+                    stored = find(user, requestKey);
+                    if (stored == null) {
+                        throw e;
+                    }
+                }
+            }
+            if (!stored.getRequestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReusedException(idempotencyKey);
+            }
+            replayed.increment();
+            logger.info("Replaying stored response for order ID: {} to user: {}", stored.getOrderId(), username);
+            return new IdempotentResponse(stored.getResponse(), true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Удаляет ответы старше ttl; первая очистка - через интервал после старта
+    @Scheduled(fixedDelayString = "${orders.idempotency.sweep-interval-ms:3600000}",
+            initialDelayString = "${orders.idempotency.sweep-interval-ms:3600000}")
+    public int sweepExpired() {
+        Instant before = Instant.now().minus(ttl);
+        int deleted = orderShards.onEachShard(false, shard -> requestRepository.deleteCreatedBefore(before)).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (deleted > 0) {
+            logger.info("Removed {} expired idempotency keys", deleted);
+        }
+        return deleted;
+    }
+
+    private IdempotentRequest find(UserIdentity user, String requestKey) {
+        IdempotentRequest stored = recent.getIfPresent(requestKey);
+        if (stored == null) {
+            stored = orderShards.onShard(orderShards.shardOfUser(user.id()),
+                    () -> requestRepository.findById(requestKey)).orElse(null);
+            if (stored != null) {
+                recent.put(requestKey, stored);
+            }
+        }
+        return stored;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Тело ответа и признак того, что это сохраненный ответ на более ранний запрос
+    public record IdempotentResponse(String body, boolean replayed) {
+    }
+}
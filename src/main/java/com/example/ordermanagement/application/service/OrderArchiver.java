@@ -0,0 +1,144 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.repository.OrderArchiveRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Перенос мягко удаленных заказов и их позиций из orders/products в orders_archive/products_archive.
+// Заказ переносится через retention после удаления. Каждая пачка (batchSize заказов) копируется
+// и удаляется в своей транзакции, поэтому блокировки держатся недолго, а прерванный запуск
+// продолжается со следующей пачки. Между пачками - пауза, за один запуск - не больше maxBatches пачек,
+// чтобы архивация не конкурировала с рабочей нагрузкой. Рассчитано на один экземпляр задачи.
+// При шардировании архив хранится на шарде заказа, шарды разбираются по очереди, maxBatches - на весь запуск.
+@Component
+public class OrderArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+    static final String ARCHIVED_ORDERS_COUNTER = "orders.archive.orders";
+    static final String ARCHIVED_PRODUCTS_COUNTER = "orders.archive.products";
+    static final String BATCH_TIMER = "orders.archive.batch";
+    static final String BACKLOG_GAUGE = "orders.archive.backlog";
+
+    private final OrderArchiveRepository archiveRepository;
+    private final OrderShards orderShards;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration pause;
+    private final int maxBatches;
+
+    private final Counter archivedOrders;
+    private final Counter archivedProducts;
+    private final Timer batchTimer;
+    // Удаленные заказы, ожидающие переноса: считается в начале запуска и уменьшается по ходу
+    private final AtomicLong backlog = new AtomicLong();
+
+    public OrderArchiver(OrderArchiveRepository archiveRepository, OrderShards orderShards,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         @Value("${orders.archive.retention:7d}") Duration retention,
+                         @Value("${orders.archive.batch-size:500}") int batchSize,
+                         @Value("${orders.archive.pause:100ms}") Duration pause,
+                         @Value("${orders.archive.max-batches:100}") int maxBatches) {
+        this.archiveRepository = archiveRepository;
+        this.orderShards = orderShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+        this.pause = pause;
+        this.maxBatches = Math.max(1, maxBatches);
+        this.archivedOrders = Counter.builder(ARCHIVED_ORDERS_COUNTER)
+                .description("Deleted orders moved to the archive")
+                .register(meterRegistry);
+        this.archivedProducts = Counter.builder(ARCHIVED_PRODUCTS_COUNTER)
+                .description("Products of deleted orders moved to the archive")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(BATCH_TIMER)
+                .description("Time to move one batch of deleted orders to the archive")
+                .register(meterRegistry);
+        Gauge.builder(BACKLOG_GAUGE, backlog, AtomicLong::get)
+                .description("Deleted orders waiting to be archived")
+                .register(meterRegistry);
+    }
+
+    // Запуск по расписанию; возвращает количество перенесенных заказов
+    @Scheduled(fixedDelayString = "${orders.archive.interval-ms:600000}",
+            initialDelayString = "${orders.archive.interval-ms:600000}")
+    public long archiveDeleted() {
+        Instant cutoff = Instant.now().minus(retention);
+        backlog.set(orderShards.onEachShard(true, shard -> archiveRepository.countArchivable(cutoff)).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        long total = 0;
+        int batches = 0;
+        boolean interrupted = false;
+        for (int shard = 0; shard < orderShards.count() && !interrupted; shard++) {
+            int batchShard = shard;
+            while (batches < maxBatches && backlog.get() > 0) {
+                batches++;
+                ArchivedBatch result = batchTimer.record(() -> orderShards.onShard(batchShard,
+                        () -> transactionTemplate.execute(status -> archiveBatch(cutoff))));
+                int archived = result.orders();
+                archivedOrders.increment(archived);
+                archivedProducts.increment(result.products());
+                total += archived;
+                backlog.updateAndGet(value -> Math.max(0, value - archived));
+                if (archived < batchSize) {
+                    break;
+                }
+                if (!pause()) {
+                    interrupted = true;
+                    break;
+                }
+            }
+        }
+        if (total > 0) {
+            logger.info("Archived {} deleted orders, {} left", total, backlog.get());
+        }
+        return total;
+    }
+
+    private ArchivedBatch archiveBatch(Instant cutoff) {
+        List<Long> orderIds = archiveRepository.findArchivableOrderIds(cutoff, batchSize);
+        if (orderIds.isEmpty()) {
+            return new ArchivedBatch(0, 0);
+        }
+        int orders = archiveRepository.copyOrders(orderIds, Instant.now());
+        int products = archiveRepository.copyProducts(orderIds);
+        archiveRepository.deleteProducts(orderIds);
+        archiveRepository.deleteOrders(orderIds);
+        logger.debug("Archived batch of {} orders and {} products", orders, products);
+        return new ArchivedBatch(orders, products);
+    }
+
+    // Пауза между пачками; false - поток прерван (остановка приложения)
+    private boolean pause() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record ArchivedBatch(int orders, int products) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ordermanagement.application.service;
+
+// Результат создания одного заказа из пачки: позиция заказа в запросе
+// и либо ID созданного заказа, либо причина отказа
+public record OrderBatchResult(int index, Long orderId, String error) {
+
+    public static OrderBatchResult created(int index, Long orderId) {
+        return new OrderBatchResult(index, orderId, null);
+    }
+
+    public static OrderBatchResult rejected(int index, String error) {
+        return new OrderBatchResult(index, null, error);
+    }
+
+    public boolean isCreated() {
+        return error == null;
+    }
+}
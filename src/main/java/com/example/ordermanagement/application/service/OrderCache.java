@@ -0,0 +1,69 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.infrastructure.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Read-through кэш снимков заказов поверх кэша "orders" из CacheManager.
+// Запись в кэш после изменения выполняется только после коммита транзакции,
+// чтобы откаченные изменения не попали в кэш.
+@Component
+public class OrderCache {
+
+    private final Cache cache;
+
+    public OrderCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.ORDERS_CACHE);
+    }
+
+    // Возвращает копию заказа из кэша или загружает его; отсутствующие заказы не кэшируются
+    public Optional<Order> get(Long orderId, Supplier<Optional<Order>> loader) {
+        return getSnapshot(orderId, () -> loader.get().map(OrderSnapshot::of)).map(OrderSnapshot::toOrder);
+    }
+
+    // То же без копирования в Order: снимок неизменяемый, его можно отдавать как есть.
+    // Кэши Spring по умолчанию сохраняют и null (allowNullValues), поэтому промах сразу удаляется:
+    // иначе заказ, созданный после такого чтения, до истечения записи отдавался бы как отсутствующий
+    public Optional<OrderSnapshot> getSnapshot(Long orderId, Supplier<Optional<OrderSnapshot>> loader) {
+        OrderSnapshot snapshot = cache.get(orderId, () -> loader.get().orElse(null));
+        if (snapshot == null) {
+            cache.evict(orderId);
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    // Кладет актуальный снимок заказа в кэш после коммита
+    public void refresh(Order order) {
+        OrderSnapshot snapshot = OrderSnapshot.of(order);
+        cache.evict(snapshot.orderId());
+        afterCommit(() -> cache.put(snapshot.orderId(), snapshot));
+    }
+
+    // Удаляет заказ из кэша сразу и повторно после коммита, чтобы параллельное чтение
+    // внутри транзакции не вернуло в кэш устаревшие данные
+    public void evict(Long orderId) {
+        cache.evict(orderId);
+        afterCommit(() -> cache.evict(orderId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -3,77 +3,201 @@ package com.example.ordermanagement.application.service;
 import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
 import com.example.ordermanagement.domain.exception.InvalidOrderException;
 import com.example.ordermanagement.domain.exception.OrderNotFoundException;
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
 import com.example.ordermanagement.domain.exception.TotalPriceMismatchException;
+import com.example.ordermanagement.domain.model.Money;
 import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.Product;
 import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.model.UserIdentity;
 import com.example.ordermanagement.domain.repository.OrderRepository;
 import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    // Совпадает с hibernate.jdbc.batch_size: после каждого батча контекст персистентности сбрасывается
+    private static final int BATCH_FLUSH_SIZE = 50;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final UserIdentityCache userIdentityCache;
+    private final OrderCache orderCache;
+    private final OrderStatusCounters statusCounters;
+    private final OrderShards orderShards;
 
-    public OrderService(OrderRepository orderRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
+    public OrderService(OrderRepository orderRepository, UserRepository userRepository,
+                        ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                        UserIdentityCache userIdentityCache, OrderCache orderCache,
+                        OrderStatusCounters statusCounters, OrderShards orderShards) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.userIdentityCache = userIdentityCache;
+        this.orderCache = orderCache;
+        this.statusCounters = statusCounters;
+        this.orderShards = orderShards;
     }
 
     // Создаем заказ
     @Transactional
     public Order createOrder(String username, Order order) {
         logger.info("Creating order for user: {}", username);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new InvalidOrderException("User not found"));
-        order.setUser(user);
+        UserIdentity user = resolveUser(username);
+        // Заказ хранится на шарде владельца
+        orderShards.bind(orderShards.shardOfUser(user.id()));
+        order.setUser(userRepository.getReferenceById(user.id()));
+        attachProducts(order);
         validateOrder(order);
         Order savedOrder = orderRepository.save(order);
+        orderCache.refresh(savedOrder);
+        statusCounters.orderCreated(savedOrder.getStatus(), savedOrder.getTotalPrice());
         logger.info("Order created successfully with ID: {}", savedOrder.getOrderId());
         return savedOrder;
     }
 
+    // Создаем пачку заказов. Заказы проверяются параллельно, корректные сохраняются в одной транзакции
+    // JDBC-батчами; некорректные не мешают сохранению остальных.
+    // Результаты возвращаются в порядке исходного списка.
+    @Transactional
+    public List<OrderBatchResult> createOrders(String username, List<Order> orders) {
+        if (orders == null || orders.isEmpty() || orders.size() > MAX_BATCH_SIZE) {
+            throw new InvalidOrderException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " orders");
+        }
+        logger.info("Creating batch of {} orders for user: {}", orders.size(), username);
+        UserIdentity user = resolveUser(username);
+        orderShards.bind(orderShards.shardOfUser(user.id()));
+
+        String[] errors = new String[orders.size()];
+        IntStream.range(0, orders.size()).parallel().forEach(i -> {
+            try {
+                validateOrder(orders.get(i));
+            } catch (InvalidOrderException | TotalPriceMismatchException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<OrderBatchResult> results = new ArrayList<>(orders.size());
+        int persisted = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            if (errors[i] != null) {
+                results.add(OrderBatchResult.rejected(i, errors[i]));
+                continue;
+            }
+            Order order = orders.get(i);
+            order.setUser(userRepository.getReferenceById(user.id()));
+            attachProducts(order);
+            orderRepository.save(order);
+            orderCache.evict(order.getOrderId());
+            statusCounters.orderCreated(order.getStatus(), order.getTotalPrice());
+            results.add(OrderBatchResult.created(i, order.getOrderId()));
+            if (++persisted % BATCH_FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        logger.info("Batch created {} of {} orders for user: {}", persisted, orders.size(), username);
+        return results;
+    }
+
+    // Позиции нового заказа всегда вставляются: id, пришедшие от клиента, игнорируем,
+    // их выдаст последовательность
+    private static void attachProducts(Order order) {
+        for (Product product : order.getProducts()) {
+            product.setProductId(null);
+            product.setOrder(order);
+        }
+    }
+
     // Обновляем заказ
     @Transactional
     public Order updateOrder(String username, Long orderId, Order updatedOrder) {
+        return updateOrder(username, orderId, updatedOrder, null);
+    }
+
+    // Обновляем заказ, если его текущая версия равна expectedVersion (null - без проверки версии).
+    // Изменение, параллельно зафиксированное другой транзакцией между чтением и записью,
+    // отклоняется на UPDATE ... WHERE version = ? (OptimisticLockingFailureException)
+    @Transactional
+    public Order updateOrder(String username, Long orderId, Order updatedOrder, Long expectedVersion) {
         logger.info("Updating order with ID: {} for user: {}", orderId, username);
-        Order existingOrder = orderRepository.findById(orderId)
+        orderShards.bind(orderShards.shardOfOrder(orderId));
+        Order existingOrder = orderRepository.findWithProductsByOrderId(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new InvalidOrderException("User not found"));
+        UserIdentity user = resolveUser(username);
 
-        if (!existingOrder.getUser().getId().equals(user.getId()) && user.getRole() != User.Role.ADMIN) {
+        if (!existingOrder.getUser().getId().equals(user.id()) && !user.isAdmin()) {
             throw new AccessDeniedException("You don't have permission to update this order");
         }
+        if (expectedVersion != null && !expectedVersion.equals(existingOrder.getVersion())) {
+            throw new OrderVersionConflictException(orderId);
+        }
 
         Order.OrderStatus oldStatus = existingOrder.getStatus();
+        BigDecimal oldTotal = existingOrder.getTotalPrice();
 
+        boolean orderRowChanged = !Objects.equals(existingOrder.getCustomerName(), updatedOrder.getCustomerName())
+                || oldStatus != updatedOrder.getStatus()
+                || !samePrice(existingOrder.getTotalPrice(), updatedOrder.getTotalPrice());
         existingOrder.setCustomerName(updatedOrder.getCustomerName());
         existingOrder.setStatus(updatedOrder.getStatus());
         existingOrder.setTotalPrice(updatedOrder.getTotalPrice());
         existingOrder.updateProducts(updatedOrder.getProducts());
+        if (!orderRowChanged) {
+            // Строка заказа не меняется (только позиции): повышаем версию явно, иначе правка позиций
+            // не конфликтовала бы с параллельной правкой того же заказа
+            lockAndIncrementVersion(existingOrder);
+        }
 
         validateOrder(existingOrder);
 
         Order savedOrder = orderRepository.save(existingOrder);
+        // Сбрасываем изменения сразу, чтобы в кэш попал снимок с новой версией
+        flushVersioned(orderId);
+        orderCache.refresh(savedOrder);
+        statusCounters.orderUpdated(oldStatus, oldTotal, savedOrder.getStatus(), savedOrder.getTotalPrice());
         logger.info("Order updated successfully with ID: {}", savedOrder.getOrderId());
 
         if (oldStatus != savedOrder.getStatus()) {
-            OrderStatusChangedEvent event = new OrderStatusChangedEvent(savedOrder.getOrderId(), oldStatus, savedOrder.getStatus());
+            OrderStatusChangedEvent event = new OrderStatusChangedEvent(savedOrder.getOrderId(),
+                    savedOrder.getUser().getId(), oldStatus, savedOrder.getStatus());
             eventPublisher.publishEvent(event);
             logger.info("Published order status changed event for order ID: {}", savedOrder.getOrderId());
         }
@@ -81,24 +205,107 @@ public class OrderService {
         return savedOrder;
     }
 
+    private void lockAndIncrementVersion(Order order) {
+        try {
+            entityManager.lock(order, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        } catch (OptimisticLockException e) {
+            throw new OrderVersionConflictException(order.getOrderId());
+        }
+    }
+
+    private void flushVersioned(Long orderId) {
+        try {
+            entityManager.flush();
+        } catch (OptimisticLockException e) {
+            throw new OrderVersionConflictException(orderId);
+        }
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
     // Получаем список заказов
+    @Transactional(readOnly = true)
     public List<Order> getOrders(String username, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new InvalidOrderException("User not found"));
-        if (user.getRole() == User.Role.ADMIN) {
+        UserIdentity user = resolveUser(username);
+        if (user.isAdmin()) {
             return orderRepository.findByStatusAndPriceRange(status, minPrice, maxPrice);
         } else {
-            return orderRepository.findByUserAndStatusAndPriceRange(user, status, minPrice, maxPrice);
+            return orderRepository.findByUserAndStatusAndPriceRange(user.id(), status, minPrice, maxPrice);
+        }
+    }
+
+    // Получаем страницу заказов: не более limit заказов с order_id > after, по возрастанию order_id
+    @Transactional(readOnly = true)
+    public List<Order> getOrders(String username, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice,
+                                 Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidOrderException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        UserIdentity user = resolveUser(username);
+        PageRequest page = PageRequest.ofSize(limit);
+        return user.isAdmin()
+                ? orderRepository.findPageByStatusAndPriceRange(status, minPrice, maxPrice, after, page)
+                : orderRepository.findPageByUserAndStatusAndPriceRange(user.id(), status, minPrice, maxPrice, after, page);
+    }
+
+    // Страница заказов для чтения: то же, что getOrders с after и limit, но заказы выбираются сразу
+    // в неизменяемые снимки без создания сущностей (заказы страницы и их продукты - два запроса)
+    @Transactional(readOnly = true)
+    public List<OrderSnapshot> getOrderViews(String username, Order.OrderStatus status, BigDecimal minPrice,
+                                             BigDecimal maxPrice, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidOrderException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        UserIdentity user = resolveUser(username);
+        return orderRepository.findSnapshotPage(user.isAdmin() ? null : user.id(), status, minPrice, maxPrice,
+                after, PageRequest.ofSize(limit));
+    }
+
+    // Потоково передаем заказы в consumer, не накапливая их в памяти.
+    // Каждый заказ отсоединяется от контекста сразу после обработки. Возвращает количество заказов.
+    @Transactional(readOnly = true)
+    public long streamOrders(String username, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice,
+                             Consumer<Order> consumer) {
+        UserIdentity user = resolveUser(username);
+        long count = 0;
+        try (Stream<Order> orders = user.isAdmin()
+                ? orderRepository.streamByStatusAndPriceRange(status, minPrice, maxPrice)
+                : orderRepository.streamByUserAndStatusAndPriceRange(user.id(), status, minPrice, maxPrice)) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                consumer.accept(order);
+                entityManager.detach(order);
+                count++;
+            }
         }
+        logger.info("Streamed {} orders for user: {}", count, username);
+        return count;
     }
 
-    // Получаем конкретный заказ
+    // Получаем конкретный заказ (через кэш снимков заказов)
     public Order getOrder(String username, Long orderId) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new InvalidOrderException("User not found"));
-        Order order = orderRepository.findById(orderId)
+        UserIdentity user = resolveUser(username);
+        int shard = orderShards.shardOfOrder(orderId);
+        Order order = orderCache.get(orderId,
+                        () -> orderShards.onShard(shard, () -> orderRepository.findWithProductsByOrderId(orderId)))
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+        if (user.isAdmin() || order.getUser().getId().equals(user.id())) {
+            return order;
+        } else {
+            throw new AccessDeniedException("You don't have permission to access this order");
+        }
+    }
+
+    // Получаем снимок заказа для чтения (через тот же кэш): при промахе заказ выбирается
+    // одним запросом без создания сущностей, при попадании снимок не копируется
+    public OrderSnapshot getOrderView(String username, Long orderId) {
+        UserIdentity user = resolveUser(username);
+        int shard = orderShards.shardOfOrder(orderId);
+        OrderSnapshot order = orderCache.getSnapshot(orderId,
+                        () -> orderShards.onShard(shard, () -> orderRepository.findSnapshotById(orderId)))
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
-        if (user.getRole() == User.Role.ADMIN || order.getUser().getId().equals(user.getId())) {
+        if (user.isAdmin() || order.userId().equals(user.id())) {
             return order;
         } else {
             throw new AccessDeniedException("You don't have permission to access this order");
@@ -108,14 +315,66 @@ public class OrderService {
     // Удаляем заказ
     @Transactional
     public void deleteOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException(orderId));
-        orderRepository.delete(order);
-        logger.info("Order deleted successfully with ID: {}", orderId);
+        if (deleteOrders(List.of(orderId)).isEmpty()) {
+            throw new OrderNotFoundException(orderId);
+        }
     }
 
-    // Проверяем валидность заказа
-    private void validateOrder(Order order) {
+    // Мягко удаляем пачку заказов одним UPDATE, не загружая сущности. Возвращает id удаленных заказов;
+    // несуществующие и уже удаленные id пропускаются.
+    // При шардировании заказы каждого шарда удаляются в отдельной транзакции шарда
+    @Transactional
+    public List<Long> deleteOrders(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty() || orderIds.size() > MAX_PAGE_SIZE) {
+            throw new InvalidOrderException("Between 1 and " + MAX_PAGE_SIZE + " order IDs must be given");
+        }
+        Map<Integer, Set<Long>> idsByShard = new TreeMap<>();
+        for (Long orderId : orderIds) {
+            idsByShard.computeIfAbsent(orderShards.shardOfOrder(orderId), shard -> new HashSet<>()).add(orderId);
+        }
+        return orderShards.onShards(idsByShard.keySet(), false, shard -> deleteOnShard(idsByShard.get(shard)))
+                .stream()
+                .flatMap(List::stream)
+                .sorted()
+                .toList();
+    }
+
+    private List<Long> deleteOnShard(Set<Long> orderIds) {
+        List<OrderRepository.OrderTotal> orders = orderRepository.findTotalsByOrderIdIn(orderIds);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> deletedIds = orders.stream().map(OrderRepository.OrderTotal::getOrderId).sorted().toList();
+        int deleted = orderRepository.softDeleteByOrderIdIn(deletedIds, Instant.now());
+        if (deleted != deletedIds.size()) {
+            // Часть заказов удалили параллельно: счетчики поправит следующая сверка с базой
+            logger.warn("Deleted {} of {} orders found for deletion", deleted, deletedIds.size());
+        }
+        for (OrderRepository.OrderTotal order : orders) {
+            orderCache.evict(order.getOrderId());
+            statusCounters.orderDeleted(order.getStatus(), order.getTotalPrice());
+        }
+        logger.info("Deleted {} orders", deleted);
+        return deletedIds;
+    }
+
+    // Определяем пользователя: берем аутентифицированного User из SecurityContext,
+    // иначе - из UserIdentityCache, и только при промахе кэша обращаемся к базе
+    public UserIdentity resolveUser(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User principal
+                && principal.getUsername().equals(username)) {
+            return UserIdentity.of(principal);
+        }
+        // Пользователь читается с домашнего шарда в отдельной транзакции: текущая транзакция
+        // еще может быть привязана к шарду заказов этого пользователя
+        return userIdentityCache.get(username, () -> orderShards.onHomeShard(
+                        () -> userRepository.findByUsername(username).map(UserIdentity::of)))
+                .orElseThrow(() -> new InvalidOrderException("User not found"));
+    }
+
+    // Проверяем валидность заказа (пакетная видимость - для JMH-бенчмарков)
+    static void validateOrder(Order order) {
         if (order == null) {
             throw new InvalidOrderException("Order cannot be null");
         }
@@ -128,15 +387,41 @@ public class OrderService {
         if (order.getProducts() == null || order.getProducts().isEmpty()) {
             throw new InvalidOrderException("Order must contain at least one product");
         }
+        for (Product product : order.getProducts()) {
+            if (product == null || product.getPrice() == null) {
+                throw new InvalidOrderException("Product price is required");
+            }
+        }
+
+        if (!totalPriceMatches(order)) {
+            throw new TotalPriceMismatchException("Total price does not match the sum of product prices");
+        }
+    }
+
+    // Сверяем итог заказа с суммой позиций. Основной путь - точная арифметика в копейках на long
+    // без аллокаций на каждую позицию; к BigDecimal переходим, только если сумма не представима
+    // в копейках (больше двух знаков после запятой) или при переполнении long
+    static boolean totalPriceMatches(Order order) {
+        if (order.getTotalPrice() == null) {
+            return false;
+        }
+        try {
+            long total = 0;
+            for (Product product : order.getProducts()) {
+                total = Math.addExact(total, Money.lineTotal(Money.toCents(product.getPrice()), product.getQuantity()));
+            }
+            return total == Money.toCents(order.getTotalPrice());
+        } catch (ArithmeticException e) {
+            return totalPriceMatchesExactly(order);
+        }
+    }
 
+    // Сверка в BigDecimal с округлением до копеек (HALF_UP)
+    private static boolean totalPriceMatchesExactly(Order order) {
         BigDecimal calculatedTotal = order.getProducts().stream()
                 .map(product -> product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(2, RoundingMode.HALF_UP);
-
-        if (order.getTotalPrice() == null || !order.getTotalPrice().setScale(2, RoundingMode.HALF_UP).equals(calculatedTotal)) {
-            throw new TotalPriceMismatchException("Total price does not match the sum of product prices");
-        }
+                .setScale(Money.SCALE, RoundingMode.HALF_UP);
+        return order.getTotalPrice().setScale(Money.SCALE, RoundingMode.HALF_UP).equals(calculatedTotal);
     }
 }
-
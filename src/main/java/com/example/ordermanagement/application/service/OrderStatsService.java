@@ -0,0 +1,63 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.example.ordermanagement.domain.model.OrderStats;
+import com.example.ordermanagement.domain.model.UserIdentity;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Отчеты по заказам для дашбордов: агрегаты считаются в базе (OrderRepository.findStats).
+// Пользователь получает статистику по своим заказам, администратор - по всем.
+// Статистика по всем заказам - самый тяжелый запрос, и дашборды администраторов запрашивают
+// одни и те же периоды, поэтому она кэшируется на короткое время (orders.stats.cache-ttl).
+@Service
+public class OrderStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatsService.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final Cache<StatsKey, List<OrderStats>> adminStatsCache;
+
+    public OrderStatsService(OrderRepository orderRepository, OrderService orderService, MeterRegistry meterRegistry,
+                             @Value("${orders.stats.cache-size:100}") long cacheSize,
+                             @Value("${orders.stats.cache-ttl:30s}") Duration cacheTtl) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.adminStatsCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, adminStatsCache, "orders.stats");
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderStats> getStats(String username, OrderStats.Period period, Instant from, Instant to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidOrderException("Stats period start must be before its end");
+        }
+        UserIdentity user = orderService.resolveUser(username);
+        if (user.isAdmin()) {
+            return adminStatsCache.get(new StatsKey(period, from, to), key -> {
+                logger.debug("Computing order stats for all users, period: {}", period);
+                return orderRepository.findStats(null, period, from, to);
+            });
+        }
+        return orderRepository.findStats(user.id(), period, from, to);
+    }
+
+    private record StatsKey(OrderStats.Period period, Instant from, Instant to) {
+    }
+}
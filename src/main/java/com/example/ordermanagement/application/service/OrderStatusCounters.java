@@ -0,0 +1,158 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Счетчики заказов и выручки (сумма total_price) по статусам, которые поддерживаются в памяти
+// при создании, смене статуса и удалении заказа. Чтение - O(1) без обращения к базе, поэтому
+// метрики orders.count и orders.revenue можно опрашивать сколь угодно часто.
+// Изменения применяются после коммита транзакции. При старте значения строятся одним
+// агрегирующим запросом и периодически сверяются с базой: расхождения (изменения в обход
+// OrderService, изменения, попавшие и в счетчики, и в результат сверки) исправляются при следующей сверке.
+@Component
+public class OrderStatusCounters {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCounters.class);
+
+    static final String COUNT_GAUGE = "orders.count";
+    static final String REVENUE_GAUGE = "orders.revenue";
+
+    private final OrderRepository orderRepository;
+    private final OrderShards orderShards;
+    private final Map<Order.OrderStatus, LongAdder> counts = new EnumMap<>(Order.OrderStatus.class);
+    // Выручка в копейках: LongAdder не теряет точность при параллельных обновлениях
+    private final Map<Order.OrderStatus, LongAdder> revenueCents = new EnumMap<>(Order.OrderStatus.class);
+
+    public OrderStatusCounters(OrderRepository orderRepository, OrderShards orderShards, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderShards = orderShards;
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            LongAdder count = new LongAdder();
+            LongAdder revenue = new LongAdder();
+            counts.put(status, count);
+            revenueCents.put(status, revenue);
+            Gauge.builder(COUNT_GAUGE, count, LongAdder::sum)
+                    .tag("status", status.name())
+                    .description("Orders in the status")
+                    .register(meterRegistry);
+            Gauge.builder(REVENUE_GAUGE, revenue, adder -> adder.sum() / 100.0)
+                    .tag("status", status.name())
+                    .description("Sum of order totals in the status")
+                    .register(meterRegistry);
+        }
+    }
+
+    public long getCount(Order.OrderStatus status) {
+        return counts.get(status).sum();
+    }
+
+    public BigDecimal getRevenue(Order.OrderStatus status) {
+        return BigDecimal.valueOf(revenueCents.get(status).sum(), 2);
+    }
+
+    public void orderCreated(Order.OrderStatus status, BigDecimal totalPrice) {
+        long cents = toCents(totalPrice);
+        afterCommit(() -> add(status, 1, cents));
+    }
+
+    // Изменение заказа: переносит его из старого статуса в новый, учитывая изменение суммы
+    public void orderUpdated(Order.OrderStatus oldStatus, BigDecimal oldTotal,
+                             Order.OrderStatus newStatus, BigDecimal newTotal) {
+        long oldCents = toCents(oldTotal);
+        long newCents = toCents(newTotal);
+        if (oldStatus == newStatus && oldCents == newCents) {
+            return;
+        }
+        afterCommit(() -> {
+            add(oldStatus, -1, -oldCents);
+            add(newStatus, 1, newCents);
+        });
+    }
+
+    public void orderDeleted(Order.OrderStatus status, BigDecimal totalPrice) {
+        long cents = toCents(totalPrice);
+        afterCommit(() -> add(status, -1, -cents));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reconcile();
+    }
+
+    // Сверка с базой. Изменения, зафиксированные во время запроса, не теряются: к счетчикам
+    // добавляется разница между базой и значениями, снятыми до запроса.
+    // Первая сверка - через интервал: при старте счетчики уже построены в rebuild
+    @Scheduled(fixedDelayString = "${orders.counters.reconcile-interval-ms:60000}",
+            initialDelayString = "${orders.counters.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Map<Order.OrderStatus, Long> countsBefore = new EnumMap<>(Order.OrderStatus.class);
+        Map<Order.OrderStatus, Long> revenueBefore = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            countsBefore.put(status, counts.get(status).sum());
+            revenueBefore.put(status, revenueCents.get(status).sum());
+        }
+        Map<Order.OrderStatus, Long> dbCounts = new EnumMap<>(Order.OrderStatus.class);
+        Map<Order.OrderStatus, Long> dbRevenue = new EnumMap<>(Order.OrderStatus.class);
+        // При шардировании итоги шардов складываются
+        for (List<OrderRepository.StatusTotals> shardTotals
+                : orderShards.onEachShard(true, shard -> orderRepository.countAndSumByStatus())) {
+            for (OrderRepository.StatusTotals totals : shardTotals) {
+                if (totals.getStatus() != null) {
+                    dbCounts.merge(totals.getStatus(), totals.getOrderCount(), Long::sum);
+                    dbRevenue.merge(totals.getStatus(), toCents(totals.getRevenue()), Long::sum);
+                }
+            }
+        }
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            long countDrift = dbCounts.getOrDefault(status, 0L) - countsBefore.get(status);
+            long revenueDrift = dbRevenue.getOrDefault(status, 0L) - revenueBefore.get(status);
+            if (countDrift != 0 || revenueDrift != 0) {
+                logger.debug("Order counters for status {} drifted by {} orders and {} cents",
+                        status, countDrift, revenueDrift);
+                add(status, countDrift, revenueDrift);
+            }
+        }
+    }
+
+    private void add(Order.OrderStatus status, long count, long cents) {
+        if (status == null) {
+            return;
+        }
+        counts.get(status).add(count);
+        revenueCents.get(status).add(cents);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
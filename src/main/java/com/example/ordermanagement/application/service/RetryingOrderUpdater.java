@@ -0,0 +1,73 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
+import com.example.ordermanagement.domain.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Политика повторов для внутренних вызовов, которые изменяют заказ по принципу
+// "прочитать - изменить - записать" (фоновые задачи, обработчики событий).
+// Изменение применяется к свежей копии заказа и записывается с проверкой версии;
+// при конфликте с параллельным изменением заказ перечитывается и изменение применяется заново.
+// HTTP-клиенты повторов не получают: им возвращается 412, и решение о повторе остается за ними.
+@Component
+public class RetryingOrderUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryingOrderUpdater.class);
+
+    static final String RETRY_COUNTER_NAME = "order.update.retries";
+
+    private final OrderService orderService;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Counter retries;
+
+    public RetryingOrderUpdater(OrderService orderService, MeterRegistry meterRegistry,
+                                @Value("${orders.update.max-attempts:10}") int maxAttempts,
+                                @Value("${orders.update.backoff-ms:5}") long backoffMillis) {
+        this.orderService = orderService;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.retries = meterRegistry.counter(RETRY_COUNTER_NAME);
+    }
+
+    // Применяет change к актуальному состоянию заказа; после maxAttempts конфликтов
+    // пробрасывает последний OrderVersionConflictException
+    public Order update(String username, Long orderId, Consumer<Order> change) {
+        for (int attempt = 1; ; attempt++) {
+            Order current = orderService.getOrder(username, orderId);
+            change.accept(current);
+            try {
+                return orderService.updateOrder(username, orderId, current, current.getVersion());
+            } catch (OrderVersionConflictException | OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("Giving up updating order ID: {} after {} conflicting attempts", orderId, attempt);
+                    throw e instanceof OrderVersionConflictException conflict
+                            ? conflict : new OrderVersionConflictException(orderId);
+                }
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Экспоненциальная пауза со случайным разбросом, чтобы конкурирующие потоки не повторяли синхронно
+    private void backoff(int attempt) {
+        long limit = backoffMillis << Math.min(attempt - 1, 6);
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(limit + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying order update", e);
+        }
+    }
+}
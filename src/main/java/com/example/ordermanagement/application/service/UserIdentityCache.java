@@ -0,0 +1,55 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.UserIdentity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Ограниченный по размеру и времени жизни кэш "username -> id и роль".
+// Избавляет от повторного запроса к таблице users в каждом вызове OrderService.
+// Статистика кэша публикуется в Micrometer как cache.* с тегом cache=users.identity.
+@Component
+public class UserIdentityCache implements MeterBinder {
+
+    private final Cache<String, UserIdentity> cache;
+
+    public UserIdentityCache(@Value("${users.identity-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${users.identity-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users.identity");
+    }
+
+    // Возвращает пользователя из кэша или загружает его; отсутствующие пользователи не кэшируются
+    public Optional<UserIdentity> get(String username, Supplier<Optional<UserIdentity>> loader) {
+        return Optional.ofNullable(cache.get(username, key -> loader.get().orElse(null)));
+    }
+
+    public void put(UserIdentity identity) {
+        cache.put(identity.username(), identity);
+    }
+
+    // Удаляет все записи пользователя, в том числе под старым именем, если оно менялось
+    public void invalidate(Long userId) {
+        cache.asMap().values().removeIf(identity -> identity.id().equals(userId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
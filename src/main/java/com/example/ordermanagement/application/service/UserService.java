@@ -1,6 +1,7 @@
 package com.example.ordermanagement.application.service;
 
 import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.model.UserIdentity;
 import com.example.ordermanagement.domain.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,15 +12,20 @@ import org.springframework.stereotype.Service;
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserIdentityCache userIdentityCache) {
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // Пользователь уже загружен для аутентификации - сразу кладем его в кэш для OrderService
+        userIdentityCache.put(UserIdentity.of(user));
+        return user;
     }
 }
 
@@ -6,6 +6,7 @@ import lombok.Data;
 @Data
 public class OrderStatusChangedEvent {
     private final Long orderId;
+    private final Long userId;
     private final Order.OrderStatus oldStatus;
     private final Order.OrderStatus newStatus;
 }
\ No newline at end of file
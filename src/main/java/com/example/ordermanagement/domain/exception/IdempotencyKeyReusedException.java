@@ -0,0 +1,7 @@
+package com.example.ordermanagement.domain.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key: " + idempotencyKey + " was already used with a different request");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.ordermanagement.domain.exception;
+
+public class OrderVersionConflictException extends RuntimeException {
+    public OrderVersionConflictException(Long id) {
+        super("Order with id: " + id + " was modified concurrently");
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ordermanagement.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Удаленный заказ, перенесенный из orders в архив (OrderArchiver). Архив только пополняется:
+// строки копируются в него SQL-запросом и больше не изменяются.
+@Data
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_user", columnList = "user_id")
+})
+public class ArchivedOrder {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String customerName;
+
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus status;
+
+    private BigDecimal totalPrice;
+
+    private Long version;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
@@ -0,0 +1,29 @@
+package com.example.ordermanagement.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+// Позиция удаленного заказа, перенесенная в архив вместе с заказом (см. ArchivedOrder)
+@Data
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "products_archive", indexes = {
+        @Index(name = "idx_products_archive_order", columnList = "order_id")
+})
+public class ArchivedProduct {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    private String name;
+    private BigDecimal price;
+    private int quantity;
+}
@@ -0,0 +1,49 @@
+package com.example.ordermanagement.domain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Сохраненный ответ на POST /orders с заголовком Idempotency-Key (IdempotentOrderService).
+// Запись добавляется в транзакции создания заказа и хранится на шарде пользователя рядом с его заказами;
+// строки только добавляются и удаляются очисткой по created_at.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotent_requests", indexes = {
+        @Index(name = "idx_idempotent_requests_created_at", columnList = "createdAt")
+})
+public class IdempotentRequest {
+    // user_id и ключ клиента через двоеточие: ключи разных пользователей не пересекаются
+    @Id
+    @Column(length = 300)
+    private String requestKey;
+
+    // SHA-256 тела запроса: тот же ключ с другим телом отклоняется
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    // Тело ответа первого запроса (JSON)
+    @Lob
+    @Column(nullable = false)
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public static IdempotentRequest of(String requestKey, String requestHash, Long orderId, String response,
+                                       Instant createdAt) {
+        IdempotentRequest request = new IdempotentRequest();
+        request.setRequestKey(requestKey);
+        request.setRequestHash(requestHash);
+        request.setOrderId(orderId);
+        request.setResponse(response);
+        request.setCreatedAt(createdAt);
+        return request;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ordermanagement.domain.model;
+
+import java.math.BigDecimal;
+
+// Денежные суммы в копейках на long: точная арифметика без промежуточных BigDecimal.
+// Все операции бросают ArithmeticException, если сумма не представима точно
+// (больше двух знаков после запятой или выход за пределы long) - тогда считаем в BigDecimal.
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    // 12.34 -> 1234; 12.345 и суммы вне диапазона long -> ArithmeticException
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    // Стоимость позиции: цена за единицу * количество, с проверкой переполнения
+    public static long lineTotal(long priceCents, int quantity) {
+        return Math.multiplyExact(priceCents, quantity);
+    }
+}
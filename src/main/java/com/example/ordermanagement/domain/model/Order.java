@@ -4,21 +4,47 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Data
 @AllArgsConstructor
 @Entity
-@Table(name = "orders")
-@SQLDelete(sql = "UPDATE orders SET deleted = true WHERE order_id = ?")
+@Table(name = "orders", indexes = {
+        // Фильтры по статусу и цене (см. OrderSpecifications). deleted = false добавляется ко всем
+        // запросам через @Where, поэтому в глобальном индексе deleted стоит последним: иначе
+        // запросы без фильтров выбирают этот индекс и сортируют всю таблицу вместо обхода по order_id
+        @Index(name = "idx_orders_status_price_deleted", columnList = "status, totalPrice, deleted"),
+        @Index(name = "idx_orders_user_deleted_status", columnList = "user_id, deleted, status"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at"),
+        // Только для удаленных заказов (у остальных deleted_at = null): по нему их выбирает архивация
+        @Index(name = "idx_orders_deleted_at", columnList = "deleted_at")
+})
+// Для версионируемой сущности Hibernate передает в удаление id и версию.
+// Массовое удаление - OrderRepository.softDeleteByOrderIdIn
+@SQLDelete(sql = "UPDATE orders SET deleted = true, deleted_at = CURRENT_TIMESTAMP, version = version + 1"
+        + " WHERE order_id = ? AND version = ?")
 @Where(clause = "deleted = false")
 public class Order {
+    // Идентификаторы выдаются из последовательности блоками (pooled), поэтому Hibernate
+    // может группировать INSERT в JDBC-батчи; при IDENTITY батчинг вставок отключается.
+    // При шардировании в id входит номер шарда: генератор подменяется в фабрике генераторов Hibernate
+    // (ShardedSequenceStrategyProvider)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     private String customerName;
@@ -34,42 +60,114 @@ public class Order {
     private BigDecimal totalPrice;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<Product> products = new ArrayList<>();
 
     private boolean deleted = false;
 
+    // Время мягкого удаления; через orders.archive.retention заказ переносится в архив (OrderArchiver)
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    // Версия для оптимистической блокировки: UPDATE выполняется с условием version = ?,
+    // поэтому параллельное изменение того же заказа не затирается молча
+    @Version
+    private Long version;
+
+    // Время создания заказа; по нему заказы группируются в отчетах (OrderRepository.findStats)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
     public Order() {
     }
 
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+
     public enum OrderStatus {
         PENDING, CONFIRMED, CANCELLED
     }
 
+    // Сливаем позиции по идентичности, а не по месту в списке: новая позиция сопоставляется
+    // с существующей по productId, а если id не передан или не найден - по названию.
+    // Сопоставленные позиции обновляются на месте (Hibernate выполнит UPDATE, только если поля
+    // действительно изменились), несопоставленные существующие удаляются (orphanRemoval),
+    // остальные новые добавляются. Порядок позиций в заказе становится порядком нового списка.
     public void updateProducts(List<Product> newProducts) {
         if (newProducts == null) {
             this.products.clear();
             return;
         }
 
-        // Обновляем существующие продукты и добавляем новые
+        Map<Long, Product> existingById = new HashMap<>();
+        for (Product existing : this.products) {
+            if (existing.getProductId() != null) {
+                existingById.put(existing.getProductId(), existing);
+            }
+        }
+
+        // Product сравнивается по значению (@Data), поэтому учитываем сопоставленные по ссылке
+        Set<Product> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        Product[] targets = new Product[newProducts.size()];
+        for (int i = 0; i < newProducts.size(); i++) {
+            Long productId = newProducts.get(i).getProductId();
+            Product existing = productId != null ? existingById.get(productId) : null;
+            if (existing != null && matched.add(existing)) {
+                targets[i] = existing;
+            }
+        }
+
+        Map<String, Deque<Product>> unmatchedByName = new HashMap<>();
+        for (Product existing : this.products) {
+            if (!matched.contains(existing)) {
+                unmatchedByName.computeIfAbsent(existing.getName(), name -> new ArrayDeque<>()).add(existing);
+            }
+        }
+        for (int i = 0; i < newProducts.size(); i++) {
+            if (targets[i] == null) {
+                Deque<Product> sameName = unmatchedByName.get(newProducts.get(i).getName());
+                targets[i] = sameName != null ? sameName.poll() : null;
+            }
+        }
+
+        List<Product> merged = new ArrayList<>(newProducts.size());
         for (int i = 0; i < newProducts.size(); i++) {
             Product newProduct = newProducts.get(i);
-            if (i < this.products.size()) {
-                // Обновляем существующий продукт
-                Product existingProduct = this.products.get(i);
-                existingProduct.setName(newProduct.getName());
-                existingProduct.setPrice(newProduct.getPrice());
-                existingProduct.setQuantity(newProduct.getQuantity());
+            Product target = targets[i];
+            if (target != null) {
+                target.setName(newProduct.getName());
+                target.setPrice(newProduct.getPrice());
+                target.setQuantity(newProduct.getQuantity());
             } else {
-                // Добавляем новый продукт
-                this.products.add(newProduct);
+                // Новая позиция: id клиента не используем, его выдаст последовательность
+                target = newProduct;
+                target.setProductId(null);
+                target.setOrder(this);
             }
+            merged.add(target);
         }
 
-        // Удаляем лишние продукты, если новый список короче
-        while (this.products.size() > newProducts.size()) {
-            this.products.remove(this.products.size() - 1);
+        // Пересобираем список только при изменении состава или порядка позиций
+        if (!sameElements(this.products, merged)) {
+            this.products.clear();
+            this.products.addAll(merged);
+        }
+    }
+
+    private static boolean sameElements(List<Product> current, List<Product> merged) {
+        if (current.size() != merged.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i) != merged.get(i)) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
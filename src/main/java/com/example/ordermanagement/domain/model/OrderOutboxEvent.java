@@ -0,0 +1,57 @@
+package com.example.ordermanagement.domain.model;
+
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Запись transactional outbox: событие изменения статуса заказа сохраняется в той же транзакции,
+// что и сам заказ, и помечается опубликованным только после обработки. Неопубликованные записи
+// (например, после падения приложения) повторно доставляются OrderEventDispatcher.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_unpublished", columnList = "publishedAt, id"),
+        @Index(name = "idx_order_outbox_user_published", columnList = "userId, publishedAt, id")
+})
+public class OrderOutboxEvent {
+    // Запись хранится на шарде заказа, номер шарда входит в id (см. Order.orderId)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    // Владелец заказа: по нему фильтруется поток изменений статусов для пользователя
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus oldStatus;
+
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus newStatus;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant publishedAt;
+
+    public static OrderOutboxEvent of(OrderStatusChangedEvent event, Instant createdAt) {
+        OrderOutboxEvent outboxEvent = new OrderOutboxEvent();
+        outboxEvent.setOrderId(event.getOrderId());
+        outboxEvent.setUserId(event.getUserId());
+        outboxEvent.setOldStatus(event.getOldStatus());
+        outboxEvent.setNewStatus(event.getNewStatus());
+        outboxEvent.setCreatedAt(createdAt);
+        return outboxEvent;
+    }
+
+    public OrderStatusChangedEvent toEvent() {
+        return new OrderStatusChangedEvent(orderId, userId, oldStatus, newStatus);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ordermanagement.domain.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Неизменяемый снимок заказа для кэша. Каждое чтение из кэша получает
+// собственную отсоединенную копию Order через toOrder(), поэтому изменения
+// вызывающего кода не затрагивают закэшированные данные.
+public record OrderSnapshot(Long orderId, Long userId, String customerName, Order.OrderStatus status,
+                            BigDecimal totalPrice, Long version, List<ProductSnapshot> products) {
+
+    public record ProductSnapshot(Long productId, String name, BigDecimal price, int quantity) {
+    }
+
+    public static OrderSnapshot of(Order order) {
+        List<ProductSnapshot> products = order.getProducts() == null ? List.of() : order.getProducts().stream()
+                .map(p -> new ProductSnapshot(p.getProductId(), p.getName(), p.getPrice(), p.getQuantity()))
+                .toList();
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        return new OrderSnapshot(order.getOrderId(), userId, order.getCustomerName(), order.getStatus(),
+                order.getTotalPrice(), order.getVersion(), products);
+    }
+
+    public Order toOrder() {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setCustomerName(customerName);
+        order.setStatus(status);
+        order.setTotalPrice(totalPrice);
+        order.setVersion(version);
+        if (userId != null) {
+            User user = new User();
+            user.setId(userId);
+            order.setUser(user);
+        }
+        for (ProductSnapshot snapshot : products) {
+            Product product = new Product(snapshot.name(), snapshot.price(), snapshot.quantity());
+            product.setProductId(snapshot.productId());
+            product.setOrder(order);
+            order.getProducts().add(product);
+        }
+        return order;
+    }
+}
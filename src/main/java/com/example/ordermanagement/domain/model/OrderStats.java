@@ -0,0 +1,30 @@
+package com.example.ordermanagement.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Агрегаты total_price по статусу, пользователю и периоду создания заказов (строка отчета /orders/stats).
+// periodStart - начало периода в UTC.
+public record OrderStats(Order.OrderStatus status, Long userId, Instant periodStart, long count,
+                         BigDecimal sum, BigDecimal avg, BigDecimal min, BigDecimal max) {
+
+    // Длина периода, по которому группируются заказы
+    public enum Period {
+        HOUR, DAY, MONTH
+    }
+
+    // Строка из GROUP BY-запроса: компоненты даты, которые не входят в период, равны null.
+    // Среднее считается из суммы и количества, чтобы не терять точность денежных значений
+    public static OrderStats of(Order.OrderStatus status, Long userId, Integer year, Integer month,
+                                Integer day, Integer hour, long count, BigDecimal sum, BigDecimal min,
+                                BigDecimal max) {
+        Instant periodStart = LocalDateTime.of(year, month, day != null ? day : 1, hour != null ? hour : 0, 0)
+                .toInstant(ZoneOffset.UTC);
+        BigDecimal avg = count == 0 ? null
+                : sum.divide(BigDecimal.valueOf(count), Money.SCALE, RoundingMode.HALF_UP);
+        return new OrderStats(status, userId, periodStart, count, sum, avg, min, max);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.ordermanagement.domain.model;
+
+// Неизменяемые данные пользователя, нужные для проверки прав: без пароля и без связи с JPA
+public record UserIdentity(Long id, String username, User.Role role) {
+
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return role == User.Role.ADMIN;
+    }
+}
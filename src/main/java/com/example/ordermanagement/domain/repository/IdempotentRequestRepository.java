@@ -0,0 +1,21 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.IdempotentRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotentRequestRepository extends JpaRepository<IdempotentRequest, String> {
+
+    // Удаляет ответы, сохраненные раньше before, одним DELETE (по индексу idx_idempotent_requests_created_at)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,48 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// Перенос удаленных заказов в orders_archive/products_archive (OrderArchiver).
+// Запросы нативные: @Where на Order скрывает удаленные заказы от JPQL.
+// Копирование и удаление одной пачки выполняются в одной транзакции вызывающего кода.
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query(value = "SELECT COUNT(*) FROM orders WHERE deleted = true AND deleted_at < :cutoff", nativeQuery = true)
+    long countArchivable(@Param("cutoff") Instant cutoff);
+
+    // Следующая пачка удаленных раньше cutoff заказов (по индексу idx_orders_deleted_at)
+    @Query(value = "SELECT order_id FROM orders WHERE deleted = true AND deleted_at < :cutoff"
+            + " ORDER BY order_id LIMIT :limit", nativeQuery = true)
+    List<Long> findArchivableOrderIds(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (order_id, user_id, customer_name, status, total_price, version,"
+            + " created_at, deleted_at, archived_at)"
+            + " SELECT order_id, user_id, customer_name, status, total_price, version, created_at, deleted_at, :archivedAt"
+            + " FROM orders WHERE order_id IN (:ids) AND deleted = true", nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO products_archive (product_id, order_id, name, price, quantity)"
+            + " SELECT product_id, order_id, name, price, quantity FROM products WHERE order_id IN (:ids)",
+            nativeQuery = true)
+    int copyProducts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM products WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteProducts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE order_id IN (:ids) AND deleted = true", nativeQuery = true)
+    int deleteOrders(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,42 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Выборки заказов с необязательными фильтрами по статусу и диапазону цен.
+// Запросы строятся динамически из OrderSpecifications: незаданные фильтры в SQL не попадают.
+// userId = null означает выборку по всем пользователям.
+// При шардировании (OrderShards) выборка пользователя идет на его шард и привязывает к нему транзакцию,
+// выборка по всем пользователям выполняется на всех шардах параллельно и сливается по order_id.
+public interface OrderFilterRepository {
+
+    // Заказы вместе с владельцем и продуктами
+    @Transactional(readOnly = true)
+    List<Order> findByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                 BigDecimal minPrice, BigDecimal maxPrice);
+
+    @Transactional(readOnly = true)
+    List<Order> findByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice);
+
+    // Keyset-пагинация: следующая страница заказов после order_id = after, по возрастанию order_id.
+    // LIMIT выполняется в базе, продукты страницы загружаются вторым запросом по списку заказов.
+    @Transactional(readOnly = true)
+    List<Order> findPageByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                     BigDecimal minPrice, BigDecimal maxPrice,
+                                                     Long after, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    List<Order> findPageByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice,
+                                              Long after, Pageable pageable);
+
+    // Потоковое чтение заказов с продуктами для выгрузки; вызывать только внутри транзакции
+    Stream<Order> streamByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                     BigDecimal minPrice, BigDecimal maxPrice);
+
+    Stream<Order> streamByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice);
+}
@@ -0,0 +1,177 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Реализация OrderFilterRepository на Criteria API (фрагмент Spring Data для OrderRepository;
+// Spring Data ищет реализацию фрагмента в пакете репозитория)
+public class OrderFilterRepositoryImpl implements OrderFilterRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final Comparator<Order> BY_ORDER_ID = Comparator.comparing(Order::getOrderId);
+
+    private final EntityManager entityManager;
+    private final OrderShardAccess orderShards;
+
+    public OrderFilterRepositoryImpl(EntityManager entityManager, OrderShardAccess orderShards) {
+        this.entityManager = entityManager;
+        this.orderShards = orderShards;
+    }
+
+    @Override
+    public List<Order> findByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                        BigDecimal minPrice, BigDecimal maxPrice) {
+        if (userId == null) {
+            return findByStatusAndPriceRange(status, minPrice, maxPrice);
+        }
+        orderShards.bind(orderShards.shardOfUser(userId));
+        return find(userId, status, minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Order> findByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
+        return orderShards.mergeFromEachShard(BY_ORDER_ID,
+                () -> find(null, status, minPrice, maxPrice));
+    }
+
+    @Override
+    public List<Order> findPageByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                            BigDecimal minPrice, BigDecimal maxPrice,
+                                                            Long after, Pageable pageable) {
+        if (userId == null) {
+            return findPageByStatusAndPriceRange(status, minPrice, maxPrice, after, pageable);
+        }
+        orderShards.bind(orderShards.shardOfUser(userId));
+        return findPage(userId, status, minPrice, maxPrice, after, pageable);
+    }
+
+    @Override
+    public List<Order> findPageByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice,
+                                                     BigDecimal maxPrice, Long after, Pageable pageable) {
+        return orderShards.mergePageFromEachShard(pageable, BY_ORDER_ID,
+                page -> findPage(null, status, minPrice, maxPrice, after, page));
+    }
+
+    @Override
+    public Stream<Order> streamByUserAndStatusAndPriceRange(Long userId, Order.OrderStatus status,
+                                                            BigDecimal minPrice, BigDecimal maxPrice) {
+        if (userId == null) {
+            return streamByStatusAndPriceRange(status, minPrice, maxPrice);
+        }
+        orderShards.bind(orderShards.shardOfUser(userId));
+        return stream(userId, status, minPrice, maxPrice);
+    }
+
+    @Override
+    public Stream<Order> streamByStatusAndPriceRange(Order.OrderStatus status, BigDecimal minPrice,
+                                                     BigDecimal maxPrice) {
+        if (!orderShards.isSharded()) {
+            return stream(null, status, minPrice, maxPrice);
+        }
+        Iterator<Order> merged = orderShards.mergeEachShard(
+                shard -> shardPages(shard, status, minPrice, maxPrice), BY_ORDER_ID);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    private List<Order> find(Long userId, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
+        return query(OrderSpecifications.filter(userId, status, minPrice, maxPrice, null), true, true)
+                .getResultList();
+    }
+
+    // LIMIT с fetch join коллекции Hibernate выполнил бы в памяти, поэтому продукты страницы
+    // загружаются вторым запросом по уже выбранным заказам
+    private List<Order> findPage(Long userId, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice,
+                                 Long after, Pageable pageable) {
+        List<Order> orders = query(OrderSpecifications.filter(userId, status, minPrice, maxPrice, after), true, false)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        if (!orders.isEmpty()) {
+            entityManager.createQuery("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.products WHERE o IN :orders",
+                            Order.class)
+                    .setParameter("orders", orders)
+                    .getResultList();
+        }
+        return orders;
+    }
+
+    private Stream<Order> stream(Long userId, Order.OrderStatus status, BigDecimal minPrice,
+                                 BigDecimal maxPrice) {
+        return query(OrderSpecifications.filter(userId, status, minPrice, maxPrice, null), false, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Строим запрос по спецификации с сортировкой по order_id и нужными fetch join
+    private TypedQuery<Order> query(Specification<Order> specification, boolean fetchUser, boolean fetchProducts) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = cb.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        if (fetchUser) {
+            root.fetch("user", JoinType.INNER);
+        }
+        if (fetchProducts) {
+            root.fetch("products", JoinType.LEFT);
+        }
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(cb.asc(root.get("orderId")));
+        return entityManager.createQuery(query);
+    }
+
+    // Заказы шарда страницами по STREAM_FETCH_SIZE (keyset по order_id), каждая страница - в отдельной
+    // транзакции шарда. В памяти держится одна страница на шард, а курсор не удерживает соединение
+    private Iterator<Order> shardPages(int shard, Order.OrderStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
+        return new Iterator<>() {
+            private Iterator<Order> page = Collections.emptyIterator();
+            private Long after;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !last) {
+                    List<Order> orders = orderShards.onShards(List.of(shard), true, s -> findPage(null, status,
+                            minPrice, maxPrice, after, PageRequest.ofSize(STREAM_FETCH_SIZE))).get(0);
+                    last = orders.size() < STREAM_FETCH_SIZE;
+                    if (!orders.isEmpty()) {
+                        after = orders.get(orders.size() - 1).getOrderId();
+                    }
+                    page = orders.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    // Неопубликованные события, созданные раньше before, в порядке создания
+    List<OrderOutboxEvent> findByPublishedAtIsNullAndCreatedAtBeforeOrderByIdAsc(Instant before, Pageable pageable);
+
+    // Опубликованные события после позиции (publishedAt, id) в порядке публикации - для дочитки потока
+    // по Last-Event-ID. Порядок id не совпадает с порядком коммитов (id выдаются пачками), поэтому
+    // страницы идут по времени публикации, а id только упорядочивает события с одним временем
+    @Query("SELECT e FROM OrderOutboxEvent e WHERE e.publishedAt > :publishedAt"
+            + " OR (e.publishedAt = :publishedAt AND e.id > :id) ORDER BY e.publishedAt, e.id")
+    List<OrderOutboxEvent> findPublishedAfter(@Param("publishedAt") Instant publishedAt, @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Query("SELECT e FROM OrderOutboxEvent e WHERE e.userId = :userId AND (e.publishedAt > :publishedAt"
+            + " OR (e.publishedAt = :publishedAt AND e.id > :id)) ORDER BY e.publishedAt, e.id")
+    List<OrderOutboxEvent> findPublishedByUserAfter(@Param("userId") Long userId,
+                                                    @Param("publishedAt") Instant publishedAt, @Param("id") Long id,
+                                                    Pageable pageable);
+
+    // Помечает пачку событий опубликованными одним UPDATE
+    @Transactional
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") Instant publishedAt);
+
+    // Удаляет до limit событий, опубликованных раньше before, одним DELETE (по индексу idx_order_outbox_unpublished)
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM order_outbox WHERE id IN (SELECT id FROM order_outbox"
+            + " WHERE published_at < :before ORDER BY published_at LIMIT :limit)", nativeQuery = true)
+    int deletePublishedBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -2,37 +2,62 @@ package com.example.ordermanagement.domain.repository;
 
 import com.example.ordermanagement.domain.model.Order;
 import com.example.ordermanagement.domain.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+        OrderFilterRepository, OrderStatsRepository, OrderSnapshotRepository {
     List<Order> findByUser(User user);
+
     Optional<Order> findById(Long id);
-    @Query("SELECT o FROM Order o WHERE o.user = :user " +
-            "AND (:status IS NULL OR o.status = :status) " +
-            "AND (:minPrice IS NULL OR o.totalPrice >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR o.totalPrice <= :maxPrice)")
-    List<Order> findByUserAndStatusAndPriceRange(@Param("user") User user,
-                                                 @Param("status") Order.OrderStatus status,
-                                                 @Param("minPrice") BigDecimal minPrice,
-                                                 @Param("maxPrice") BigDecimal maxPrice);
-
-    @Query("SELECT o FROM Order o WHERE " +
-            "(:status IS NULL OR o.status = :status) " +
-            "AND (:minPrice IS NULL OR o.totalPrice >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR o.totalPrice <= :maxPrice)")
-    List<Order> findByStatusAndPriceRange(@Param("status") Order.OrderStatus status,
-                                          @Param("minPrice") BigDecimal minPrice,
-                                          @Param("maxPrice") BigDecimal maxPrice);
-}
 
+    // Заказ вместе с владельцем и продуктами одним запросом. Загружает запись общего кэша заказов (OrderCache),
+    // поэтому читается из основной базы, а не с реплики: устаревший с реплики заказ кэш отдавал бы всем
+    @Transactional
+    @EntityGraph(attributePaths = {"user", "products"})
+    Optional<Order> findWithProductsByOrderId(Long orderId);
+
+    // Количество заказов и сумма total_price по статусам одним запросом (OrderStatusCounters)
+    @Query("SELECT o.status AS status, COUNT(o) AS orderCount, SUM(o.totalPrice) AS revenue FROM Order o GROUP BY o.status")
+    List<StatusTotals> countAndSumByStatus();
+
+    // Статус и сумма заказов перед массовым удалением - для OrderStatusCounters
+    @Query("SELECT o.orderId AS orderId, o.status AS status, o.totalPrice AS totalPrice FROM Order o WHERE o.orderId IN :ids")
+    List<OrderTotal> findTotalsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    // Мягкое удаление пачки заказов одним UPDATE без загрузки сущностей. Версия повышается,
+    // чтобы параллельное изменение удаленного заказа завершилось конфликтом версий
+    @Modifying
+    @Query("UPDATE Order o SET o.deleted = true, o.deletedAt = :deletedAt, o.version = o.version + 1"
+            + " WHERE o.orderId IN :ids AND o.deleted = false")
+    int softDeleteByOrderIdIn(@Param("ids") Collection<Long> ids, @Param("deletedAt") Instant deletedAt);
 
+    interface OrderTotal {
+        Long getOrderId();
 
+        Order.OrderStatus getStatus();
 
+        BigDecimal getTotalPrice();
+    }
+
+    interface StatusTotals {
+        Order.OrderStatus getStatus();
+
+        long getOrderCount();
+
+        BigDecimal getRevenue();
+    }
+}
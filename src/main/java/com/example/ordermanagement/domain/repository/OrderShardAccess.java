@@ -0,0 +1,40 @@
+package com.example.ordermanagement.domain.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Доступ реализаций фрагментов OrderRepository к шардам заказов. Реализация - OrderShards
+// в infrastructure.persistence; там же описано, где хранятся строки и как шарды связаны с транзакциями.
+// Без шардирования шард один, и выборки выполняются как обычно.
+public interface OrderShardAccess {
+
+    boolean isSharded();
+
+    int shardOfUser(Long userId);
+
+    int shardOfOrder(Long orderId);
+
+    // Привязывает текущую транзакцию к шарду до ее завершения
+    void bind(int shard);
+
+    // Выполняет work на каждом из shards, каждый вызов - в своей транзакции; результаты - в порядке shards
+    <T> List<T> onShards(Collection<Integer> shards, boolean readOnly, IntFunction<T> work);
+
+    // Выборка read со всех шардов, слитая по comparator
+    <T> List<T> mergeFromEachShard(Comparator<? super T> comparator, Supplier<List<T>> read);
+
+    // Страница выборки page со всех шардов, слитая по comparator
+    <T> List<T> mergePageFromEachShard(Pageable pageable, Comparator<? super T> comparator,
+                                       Function<Pageable, List<T>> page);
+
+    // Отсортированные по comparator последовательности всех шардов (cursor - последовательность шарда),
+    // слитые в одну; последовательности читаются по мере чтения результата
+    <T> Iterator<T> mergeEachShard(IntFunction<Iterator<T>> cursor, Comparator<? super T> comparator);
+}
@@ -0,0 +1,29 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+// Чтение заказов для отдачи клиенту сразу в неизменяемые снимки (OrderSnapshot): выбираются
+// только нужные столбцы, сущности Order/Product не создаются, не попадают в контекст
+// персистентности и не проверяются на изменения при flush.
+// Фильтры - те же, что в OrderFilterRepository (OrderSpecifications); userId = null - все пользователи.
+public interface OrderSnapshotRepository {
+
+    // Заказ вместе с продуктами одним запросом; как и findWithProductsByOrderId, загружает запись
+    // общего кэша заказов, поэтому читается из основной базы
+    @Transactional
+    Optional<OrderSnapshot> findSnapshotById(Long orderId);
+
+    // Keyset-пагинация по order_id, как в findPageByUserAndStatusAndPriceRange.
+    // Продукты всей страницы выбираются вторым запросом по списку order_id
+    @Transactional(readOnly = true)
+    List<OrderSnapshot> findSnapshotPage(Long userId, Order.OrderStatus status,
+                                         BigDecimal minPrice, BigDecimal maxPrice,
+                                         Long after, Pageable pageable);
+}
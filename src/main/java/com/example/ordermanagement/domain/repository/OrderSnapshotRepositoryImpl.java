@@ -0,0 +1,131 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Реализация OrderSnapshotRepository на tuple-запросах (фрагмент Spring Data для OrderRepository).
+// Позиции заказа упорядочены по product_id; условие deleted = false добавляется через @Where на Order.
+public class OrderSnapshotRepositoryImpl implements OrderSnapshotRepository {
+
+    private static final String ORDER_COLUMNS = "o.orderId as orderId, o.user.id as userId,"
+            + " o.customerName as customerName, o.status as status, o.totalPrice as totalPrice, o.version as version";
+    private static final Comparator<OrderSnapshot> BY_ORDER_ID = Comparator.comparing(OrderSnapshot::orderId);
+
+    private final EntityManager entityManager;
+    private final OrderShardAccess orderShards;
+
+    public OrderSnapshotRepositoryImpl(EntityManager entityManager, OrderShardAccess orderShards) {
+        this.entityManager = entityManager;
+        this.orderShards = orderShards;
+    }
+
+    @Override
+    public Optional<OrderSnapshot> findSnapshotById(Long orderId) {
+        orderShards.bind(orderShards.shardOfOrder(orderId));
+        // Столбцы заказа повторяются в каждой строке позиции: для одного заказа это дешевле второго запроса
+        List<Tuple> rows = entityManager.createQuery("select " + ORDER_COLUMNS + ", p.productId as productId,"
+                        + " p.name as productName, p.price as productPrice, p.quantity as productQuantity"
+                        + " from Order o left join o.products p where o.orderId = :orderId order by p.productId",
+                        Tuple.class)
+                .setParameter("orderId", orderId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<OrderSnapshot.ProductSnapshot> products = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            if (row.get("productId") != null) {
+                products.add(productSnapshot(row));
+            }
+        }
+        return Optional.of(orderSnapshot(rows.get(0), products));
+    }
+
+    @Override
+    public List<OrderSnapshot> findSnapshotPage(Long userId, Order.OrderStatus status,
+                                                BigDecimal minPrice, BigDecimal maxPrice,
+                                                Long after, Pageable pageable) {
+        if (userId == null) {
+            return orderShards.mergePageFromEachShard(pageable, BY_ORDER_ID,
+                    page -> findPage(null, status, minPrice, maxPrice, after, page));
+        }
+        orderShards.bind(orderShards.shardOfUser(userId));
+        return findPage(userId, status, minPrice, maxPrice, after, pageable);
+    }
+
+    private List<OrderSnapshot> findPage(Long userId, Order.OrderStatus status, BigDecimal minPrice,
+                                         BigDecimal maxPrice, Long after, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Order> root = query.from(Order.class);
+        Predicate predicate = OrderSpecifications.filter(userId, status, minPrice, maxPrice, after)
+                .toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(
+                        root.get("orderId").alias("orderId"),
+                        root.get("user").get("id").alias("userId"),
+                        root.get("customerName").alias("customerName"),
+                        root.get("status").alias("status"),
+                        root.get("totalPrice").alias("totalPrice"),
+                        root.get("version").alias("version"))
+                .orderBy(cb.asc(root.get("orderId")));
+        List<Tuple> orderRows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        if (orderRows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> orderIds = orderRows.stream().map(row -> row.get("orderId", Long.class)).toList();
+        Map<Long, List<OrderSnapshot.ProductSnapshot>> productsByOrder = new HashMap<>();
+        for (Tuple row : entityManager.createQuery("select p.order.orderId as orderId, p.productId as productId,"
+                        + " p.name as productName, p.price as productPrice, p.quantity as productQuantity"
+                        + " from Product p where p.order.orderId in :orderIds order by p.order.orderId, p.productId",
+                        Tuple.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList()) {
+            productsByOrder.computeIfAbsent(row.get("orderId", Long.class), id -> new ArrayList<>())
+                    .add(productSnapshot(row));
+        }
+        return orderRows.stream()
+                .map(row -> orderSnapshot(row, productsByOrder.getOrDefault(row.get("orderId", Long.class), List.of())))
+                .toList();
+    }
+
+    private static OrderSnapshot orderSnapshot(Tuple row, List<OrderSnapshot.ProductSnapshot> products) {
+        return new OrderSnapshot(
+                row.get("orderId", Long.class),
+                row.get("userId", Long.class),
+                row.get("customerName", String.class),
+                row.get("status", Order.OrderStatus.class),
+                row.get("totalPrice", BigDecimal.class),
+                row.get("version", Long.class),
+                List.copyOf(products));
+    }
+
+    private static OrderSnapshot.ProductSnapshot productSnapshot(Tuple row) {
+        return new OrderSnapshot.ProductSnapshot(
+                row.get("productId", Long.class),
+                row.get("productName", String.class),
+                row.get("productPrice", BigDecimal.class),
+                row.get("productQuantity", Integer.class));
+    }
+}
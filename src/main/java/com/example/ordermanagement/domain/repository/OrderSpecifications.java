@@ -0,0 +1,44 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+// Условия фильтрации заказов. Каждый метод возвращает null, если параметр не задан;
+// Specification.where/and пропускают такие условия, поэтому в SQL попадают только заданные
+// предикаты и планировщик может использовать составные индексы по (user_id|deleted, status, total_price)
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> filter(Long userId, Order.OrderStatus status,
+                                              BigDecimal minPrice, BigDecimal maxPrice, Long after) {
+        return Specification.where(ownedBy(userId))
+                .and(hasStatus(status))
+                .and(priceAtLeast(minPrice))
+                .and(priceAtMost(maxPrice))
+                .and(idAfter(after));
+    }
+
+    public static Specification<Order> ownedBy(Long userId) {
+        return userId == null ? null : (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Order> hasStatus(Order.OrderStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Order> priceAtLeast(BigDecimal minPrice) {
+        return minPrice == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("totalPrice"), minPrice);
+    }
+
+    public static Specification<Order> priceAtMost(BigDecimal maxPrice) {
+        return maxPrice == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("totalPrice"), maxPrice);
+    }
+
+    public static Specification<Order> idAfter(Long after) {
+        return after == null ? null : (root, query, cb) -> cb.greaterThan(root.get("orderId"), after);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.OrderStats;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// Агрегаты по заказам, вычисляемые в базе одним GROUP BY-запросом без загрузки сущностей.
+// userId = null означает все заказы; from/to ограничивают время создания [from, to) и необязательны.
+public interface OrderStatsRepository {
+
+    // Количество, сумма, минимум и максимум total_price по статусу, пользователю и периоду создания,
+    // в порядке периода
+    @Transactional(readOnly = true)
+    List<OrderStats> findStats(Long userId, OrderStats.Period period, Instant from, Instant to);
+}
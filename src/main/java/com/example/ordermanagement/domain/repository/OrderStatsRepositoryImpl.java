@@ -0,0 +1,102 @@
+package com.example.ordermanagement.domain.repository;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Реализация OrderStatsRepository (фрагмент Spring Data для OrderRepository).
+// Период задается компонентами даты через extract, поэтому запрос не зависит от диалекта базы;
+// условие deleted = false добавляется через @Where на Order.
+public class OrderStatsRepositoryImpl implements OrderStatsRepository {
+
+    // Порядок строк запроса: период, статус (хранится строкой), пользователь
+    private static final Comparator<OrderStats> ROW_ORDER = Comparator.comparing(OrderStats::periodStart)
+            .thenComparing(stats -> stats.status().name())
+            .thenComparing(OrderStats::userId);
+
+    private final EntityManager entityManager;
+    private final OrderShardAccess orderShards;
+
+    public OrderStatsRepositoryImpl(EntityManager entityManager, OrderShardAccess orderShards) {
+        this.entityManager = entityManager;
+        this.orderShards = orderShards;
+    }
+
+    // Строки сгруппированы в том числе по пользователю, а пользователь целиком лежит на одном шарде,
+    // поэтому строки разных шардов не пересекаются и при шардировании только сливаются по порядку
+    @Override
+    public List<OrderStats> findStats(Long userId, OrderStats.Period period, Instant from, Instant to) {
+        if (userId == null) {
+            return orderShards.mergeFromEachShard(ROW_ORDER, () -> stats(null, period, from, to));
+        }
+        orderShards.bind(orderShards.shardOfUser(userId));
+        return stats(userId, period, from, to);
+    }
+
+    private List<OrderStats> stats(Long userId, OrderStats.Period period, Instant from, Instant to) {
+        List<String> periodColumns = new ArrayList<>(List.of(
+                "extract(year from o.createdAt)", "extract(month from o.createdAt)"));
+        if (period != OrderStats.Period.MONTH) {
+            periodColumns.add("extract(day from o.createdAt)");
+        }
+        if (period == OrderStats.Period.HOUR) {
+            periodColumns.add("extract(hour from o.createdAt)");
+        }
+        StringBuilder select = new StringBuilder("select o.status as status, o.user.id as userId");
+        String[] aliases = {"periodYear", "periodMonth", "periodDay", "periodHour"};
+        for (int i = 0; i < periodColumns.size(); i++) {
+            select.append(", ").append(periodColumns.get(i)).append(" as ").append(aliases[i]);
+        }
+        select.append(", count(o) as orderCount, sum(o.totalPrice) as totalSum,")
+                .append(" min(o.totalPrice) as minPrice, max(o.totalPrice) as maxPrice from Order o");
+
+        List<String> conditions = new ArrayList<>();
+        if (userId != null) {
+            conditions.add("o.user.id = :userId");
+        }
+        if (from != null) {
+            conditions.add("o.createdAt >= :from");
+        }
+        if (to != null) {
+            conditions.add("o.createdAt < :to");
+        }
+        if (!conditions.isEmpty()) {
+            select.append(" where ").append(String.join(" and ", conditions));
+        }
+        String periodList = String.join(", ", periodColumns);
+        select.append(" group by ").append(periodList).append(", o.status, o.user.id")
+                .append(" order by ").append(periodList).append(", o.status, o.user.id");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(select.toString(), Tuple.class);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query.getResultList().stream()
+                .map(row -> OrderStats.of(
+                        row.get("status", Order.OrderStatus.class),
+                        row.get("userId", Long.class),
+                        row.get("periodYear", Integer.class),
+                        row.get("periodMonth", Integer.class),
+                        periodColumns.size() > 2 ? row.get("periodDay", Integer.class) : null,
+                        periodColumns.size() > 3 ? row.get("periodHour", Integer.class) : null,
+                        row.get("orderCount", Long.class),
+                        row.get("totalSum", BigDecimal.class),
+                        row.get("minPrice", BigDecimal.class),
+                        row.get("maxPrice", BigDecimal.class)))
+                .toList();
+    }
+}
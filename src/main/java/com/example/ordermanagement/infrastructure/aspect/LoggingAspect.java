@@ -1,29 +1,95 @@
 package com.example.ordermanagement.infrastructure.aspect;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Трассировка вызовов OrderService: для каждого метода пишет таймер Micrometer
+// (order.service.calls с перцентилями), а в лог на уровне DEBUG - только выборку вызовов
+// с именем метода, временем и размером результата. Аргументы и результат не сериализуются в строку.
 @Aspect
 @Component
 public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
-    @Before("execution(* com.example.ordermanagement.application.service.OrderService.*(..))")
-    public void logBeforeAllMethods(JoinPoint joinPoint) {
-        logger.info("Executing {} with arguments {}", joinPoint.getSignature().getName(), joinPoint.getArgs());
+    static final String TIMER_NAME = "order.service.calls";
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public LoggingAspect(MeterRegistry meterRegistry,
+                         @Value("${logging.aspect.sample-rate:0.01}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
     }
 
-    @AfterReturning(pointcut = "execution(* com.example.ordermanagement.application.service.OrderService.*(..))", returning = "result")
-    public void logAfterAllMethods(JoinPoint joinPoint, Object result) {
-        logger.info("{} returned {}", joinPoint.getSignature().getName(), result);
+    @Around("execution(* com.example.ordermanagement.application.service.OrderService.*(..))")
+    public Object traceOrderService(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String method = joinPoint.getSignature().getName();
+            timer(method, failure).record(elapsed, TimeUnit.NANOSECONDS);
+            if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                logger.debug("{} took {} us, resultSize={}, failure={}", method,
+                        TimeUnit.NANOSECONDS.toMicros(elapsed), resultSize(result),
+                        failure != null ? failure.getClass().getSimpleName() : "none");
+            }
+        }
     }
-}
 
+    private Timer timer(String method, Throwable failure) {
+        if (failure == null) {
+            return successTimers.computeIfAbsent(method, name -> buildTimer(name, "none"));
+        }
+        return buildTimer(method, failure.getClass().getSimpleName());
+    }
 
+    private Timer buildTimer(String method, String exception) {
+        return Timer.builder(TIMER_NAME)
+                .description("OrderService method latency")
+                .tags("method", method, "exception", exception)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
+    static int resultSize(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+}
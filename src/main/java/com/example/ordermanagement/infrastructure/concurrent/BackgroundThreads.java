@@ -0,0 +1,53 @@
+package com.example.ordermanagement.infrastructure.concurrent;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Потоки для фоновой работы приложения (доставка событий, отправка SSE).
+// По умолчанию - daemon-потоки платформы; при orders.threads.virtual=true - виртуальные потоки,
+// и пулы фиксированного размера заменяются потоком на задачу.
+@Component
+public class BackgroundThreads {
+
+    private final boolean virtual;
+
+    public BackgroundThreads(@Value("${orders.threads.virtual:false}") boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public Thread start(String name, Runnable task) {
+        Thread thread = factory(name).newThread(task);
+        thread.setName(name);
+        thread.start();
+        return thread;
+    }
+
+    // platformThreads - размер пула в режиме потоков платформы
+    public ExecutorService executor(String prefix, int platformThreads) {
+        if (virtual) {
+            return VirtualThreads.newThreadPerTaskExecutor(prefix);
+        }
+        return Executors.newFixedThreadPool(platformThreads, factory(prefix));
+    }
+
+    private ThreadFactory factory(String prefix) {
+        if (virtual) {
+            return VirtualThreads.factory(prefix);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
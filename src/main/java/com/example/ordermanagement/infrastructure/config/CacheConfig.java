@@ -1,18 +1,48 @@
 package com.example.ordermanagement.infrastructure.config;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
+// CacheManager создается Spring Boot по настройкам spring.cache.* (Caffeine со spec из
+// application.properties); кэши из spring.cache.cache-names регистрируются в Micrometer.
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String ORDERS_CACHE = "orders";
+
+    // Micrometer публикует время загрузки только для LoadingCache, а кэши Spring загружают
+    // значения через get(key, loader). Дополняем метрики загрузки из статистики Caffeine.
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("orders");
+    public MeterBinder cacheLoadMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache == null
+                    || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)
+                    || caffeine instanceof LoadingCache) {
+                return;
+            }
+            TimeGauge.builder("cache.load.duration", caffeine, TimeUnit.NANOSECONDS, c -> c.stats().totalLoadTime())
+                    .tag("cache", name)
+                    .description("The time the cache has spent loading new values")
+                    .register(registry);
+            FunctionCounter.builder("cache.load", caffeine, c -> c.stats().loadSuccessCount())
+                    .tags("cache", name, "result", "success")
+                    .description("The number of times cache lookup methods have successfully loaded a new value")
+                    .register(registry);
+            FunctionCounter.builder("cache.load", caffeine, c -> c.stats().loadFailureCount())
+                    .tags("cache", name, "result", "failure")
+                    .description("The number of times cache lookup methods failed to load a new value")
+                    .register(registry);
+        });
     }
 }
-
@@ -6,6 +6,7 @@ import com.example.ordermanagement.domain.model.User;
 import com.example.ordermanagement.domain.repository.OrderRepository;
 import com.example.ordermanagement.domain.repository.ProductRepository;
 import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +24,7 @@ public class DataInitializer {
     public CommandLineRunner initData(UserRepository userRepository,
                                       OrderRepository orderRepository,
                                       ProductRepository productRepository,
+                                      OrderShards orderShards,
                                       PasswordEncoder passwordEncoder) {
         return args -> {
             // Создаем пользователя с ролью USER
@@ -39,18 +41,20 @@ public class DataInitializer {
             admin.setRole(User.Role.ADMIN);
             userRepository.save(admin);
 
-            // Создаем тестовый заказ для админа
-            Order order = new Order();
-            order.setUser(admin);
-            order.setCustomerName("Admin Test Order");
-            order.setStatus(Order.OrderStatus.PENDING);
-            order.setTotalPrice(new BigDecimal("100.00"));
-            orderRepository.save(order);
-
-            // Создаем тестовый продукт для заказа админа
-            Product product = new Product("Admin Test Product", new BigDecimal("100.00"), 1);
-            product.setOrder(order);
-            productRepository.save(product);
+            // Создаем тестовый заказ для админа (на шарде админа)
+            orderShards.onShard(orderShards.shardOfUser(admin.getId()), () -> {
+                Order order = new Order();
+                order.setUser(admin);
+                order.setCustomerName("Admin Test Order");
+                order.setStatus(Order.OrderStatus.PENDING);
+                order.setTotalPrice(new BigDecimal("100.00"));
+                orderRepository.save(order);
+
+                // Создаем тестовый продукт для заказа админа
+                Product product = new Product("Admin Test Product", new BigDecimal("100.00"), 1);
+                product.setOrder(order);
+                return productRepository.save(product);
+            });
         };
     }
 }
@@ -1,22 +0,0 @@
-package com.example.ordermanagement.infrastructure.config;
-
-import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
-import org.springframework.stereotype.Component;
-
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
-
-@Component
-public class LoggingConnectionFactory {
-    private final DataSource dataSource;
-
-    public LoggingConnectionFactory(DataSource dataSource) {
-        this.dataSource = dataSource;
-    }
-
-    public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
-    }
-}
-
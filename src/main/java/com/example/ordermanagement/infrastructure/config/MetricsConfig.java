@@ -1,21 +1,51 @@
 package com.example.ordermanagement.infrastructure.config;
 
+import com.example.ordermanagement.infrastructure.logging.AsyncBatchJdbcAppender;
 import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+// MeterRegistry создает Spring Boot (Prometheus-реестр, в тестах - простой реестр);
+// собственный реестр здесь не объявляется, иначе он заменил бы реестр Boot и /actuator/prometheus
+// остался бы пустым. Гистограммы HTTP-запросов и SLO настраиваются в application.properties.
 @Configuration
 public class MetricsConfig {
 
     @Bean
-    public MeterRegistry meterRegistry() {
-        return new SimpleMeterRegistry();
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
     }
 
+    // Счетчики асинхронной записи логов в БД: поставлено в очередь, записано, отброшено
     @Bean
-    public TimedAspect timedAspect(MeterRegistry registry) {
-        return new TimedAspect(registry);
+    public MeterBinder databaseLogMetrics() {
+        return registry -> {
+            if (!(LogManager.getContext(false) instanceof LoggerContext context)) {
+                return;
+            }
+            context.getConfiguration().getAppenders().values().stream()
+                    .filter(AsyncBatchJdbcAppender.class::isInstance)
+                    .map(AsyncBatchJdbcAppender.class::cast)
+                    .forEach(appender -> {
+                        FunctionCounter.builder("logging.db.events", appender, AsyncBatchJdbcAppender::getQueuedCount)
+                                .tags("appender", appender.getName(), "result", "queued")
+                                .register(registry);
+                        FunctionCounter.builder("logging.db.events", appender, AsyncBatchJdbcAppender::getWrittenCount)
+                                .tags("appender", appender.getName(), "result", "written")
+                                .register(registry);
+                        FunctionCounter.builder("logging.db.events", appender, AsyncBatchJdbcAppender::getDroppedCount)
+                                .tags("appender", appender.getName(), "result", "dropped")
+                                .register(registry);
+                        Gauge.builder("logging.db.queue.depth", appender, AsyncBatchJdbcAppender::getQueueDepth)
+                                .tag("appender", appender.getName())
+                                .register(registry);
+                    });
+        };
     }
 }
@@ -1,6 +1,10 @@
 package com.example.ordermanagement.infrastructure.config;
 
 import com.example.ordermanagement.application.service.UserService;
+import com.example.ordermanagement.infrastructure.security.BearerTokenAuthenticationFilter;
+import com.example.ordermanagement.infrastructure.security.RateLimitFilter;
+import com.example.ordermanagement.infrastructure.security.RequestRateLimiter;
+import com.example.ordermanagement.infrastructure.security.TokenService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -12,6 +16,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -19,9 +25,13 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     private final UserService userService;
+    private final TokenService tokenService;
+    private final RequestRateLimiter rateLimiter;
 
-    public SecurityConfig(UserService userService) {
+    public SecurityConfig(UserService userService, TokenService tokenService, RequestRateLimiter rateLimiter) {
         this.userService = userService;
+        this.tokenService = tokenService;
+        this.rateLimiter = rateLimiter;
     }
 
     @Bean
@@ -37,9 +47,16 @@ public class SecurityConfig {
                         .requestMatchers("/login").permitAll()
                         .requestMatchers("/orders/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/metrics").hasRole("ADMIN")
+                        // Prometheus собирает /actuator/prometheus с учетными данными администратора
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
 
+                // Bearer-токен, выданный /login, проверяется HMAC без обращения к BCrypt и базе
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
+                // Лимит частоты запросов к /orders - после проверки прав, когда пользователь уже известен
+                .addFilterAfter(new RateLimitFilter(rateLimiter), AuthorizationFilter.class)
                 .httpBasic(basic -> {
                 });  // Используем новый синтаксис
 
@@ -0,0 +1,77 @@
+package com.example.ordermanagement.infrastructure.config;
+
+import com.example.ordermanagement.infrastructure.persistence.ShardRoutingDataSource;
+import com.example.ordermanagement.infrastructure.persistence.ShardSchemaIntegrator;
+import com.example.ordermanagement.infrastructure.persistence.ShardedSequenceGenerator;
+import com.example.ordermanagement.infrastructure.persistence.ShardedSequenceStrategyProvider;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Шардирование заказов (orders.sharding.enabled=true). orders.sharding.urls - базы шардов через запятую,
+// первая - домашний шард; драйвер и учетные данные - из spring.datasource.*, у каждого шарда свой пул
+// Hikari на orders.sharding.maximum-pool-size соединений. Приложение получает ShardRoutingDataSource
+// за LazyConnectionDataSourceProxy, схема (ddl-auto) создается на каждом шарде.
+// Число шардов после появления данных не меняется: от него зависят шард пользователя и формат id.
+// Не совмещается с чтением с реплики (orders.datasource.replica.enabled).
+@Configuration
+@ConditionalOnProperty(name = "orders.sharding.enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                         @Value("${orders.sharding.urls}") List<String> urls,
+                                                         @Value("${orders.sharding.maximum-pool-size:10}")
+                                                         int poolSize) {
+        List<DataSource> shards = new ArrayList<>(urls.size());
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard).trim())
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(poolSize);
+            shards.add(dataSource);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // ShardedSequenceGenerator для сущностей с последовательностями, число шардов для него
+    // и создание схемы на остальных шардах.
+    // Соединение освобождается в конце каждой транзакции: иначе EntityManager open-in-view держал бы
+    // соединение первой транзакции запроса, и следующая транзакция работала бы с ее шардом
+    @Bean
+    @SuppressWarnings("deprecation")
+    public HibernatePropertiesCustomizer shardingHibernateProperties(ShardRoutingDataSource shardRoutingDataSource) {
+        int shardCount = shardRoutingDataSource.getShardCount();
+        return properties -> {
+            properties.put(AvailableSettings.IDENTIFIER_GENERATOR_STRATEGY_PROVIDER,
+                    ShardedSequenceStrategyProvider.class.getName());
+            properties.put(ShardedSequenceGenerator.SHARD_COUNT, shardCount);
+            properties.put(AvailableSettings.CONNECTION_HANDLING,
+                    PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(shardCount)));
+        };
+    }
+}
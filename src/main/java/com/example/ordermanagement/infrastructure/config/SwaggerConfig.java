@@ -19,7 +19,10 @@ public class SwaggerConfig {
                 .components(new Components()
                         .addSecuritySchemes("basicAuth", new SecurityScheme()
                                 .type(SecurityScheme.Type.HTTP)
-                                .scheme("basic")))
+                                .scheme("basic"))
+                        .addSecuritySchemes("bearerAuth", new SecurityScheme()
+                                .type(SecurityScheme.Type.HTTP)
+                                .scheme("bearer")))
                 .info(new Info()
                         .title("Order Management API")
                         .version("1.0")
@@ -0,0 +1,40 @@
+package com.example.ordermanagement.infrastructure.config;
+
+import com.example.ordermanagement.infrastructure.concurrent.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+// Режим виртуальных потоков (orders.threads.virtual=true, профиль virtual-threads; нужна Java 21, сборка -Pjdk21).
+// Запросы Tomcat, асинхронные запросы MVC и @Async выполняются каждый в своем виртуальном потоке,
+// фоновые потоки приложения создает BackgroundThreads. Число одновременных запросов больше
+// не ограничено пулом Tomcat, поэтому ограничителем становится пул соединений Hikari
+// (настройки в application-virtual-threads.properties).
+@Configuration
+@ConditionalOnProperty(name = "orders.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualThreadExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("http-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService tomcatVirtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(tomcatVirtualThreadExecutor);
+    }
+
+    // Заменяет пул applicationTaskExecutor из Spring Boot: его используют @Async и асинхронные запросы MVC
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-"));
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.ordermanagement.infrastructure.logging;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Асинхронный appender, пишущий логи в таблицу БД пачками.
+// Поток запроса только кладет событие в ограниченную очередь; фоновый поток собирает
+// до batchSize событий и записывает их одним многострочным INSERT через собственное
+// соединение, не занимая пул DataSource приложения.
+// При переполнении очереди действует overflowPolicy: DROP - событие отбрасывается сразу,
+// BLOCK - поток ждет освобождения места до blockTimeoutMillis, затем событие отбрасывается.
+// При остановке фоновый поток дописывает оставшееся в очереди, пока не истечет таймаут stop:
+// это best-effort, события, не записанные к этому моменту, теряются.
+// Соединением владеет только фоновый поток и закрывает его сам при завершении.
+@Plugin(name = "AsyncBatchJdbc", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
+public final class AsyncBatchJdbcAppender extends AbstractAppender {
+
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    private record Row(long timestamp, String level, String logger, String message, String exception) {
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String tableName;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final BlockingQueue<Row> queue;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+    private Connection connection;
+    private PreparedStatement fullBatchStatement;
+
+    AsyncBatchJdbcAppender(String name, Filter filter, String url, String user, String password, String tableName,
+                           int queueSize, int batchSize, long flushIntervalMillis,
+                           OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        super(name, filter, null, true, Property.EMPTY_ARRAY);
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.tableName = tableName;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @PluginFactory
+    public static AsyncBatchJdbcAppender createAppender(
+            @PluginAttribute("name") String name,
+            @PluginElement("Filter") Filter filter,
+            @PluginAttribute("url") String url,
+            @PluginAttribute(value = "user", defaultString = "sa") String user,
+            @PluginAttribute(value = "password", defaultString = "", sensitive = true) String password,
+            @PluginAttribute(value = "tableName", defaultString = "logs") String tableName,
+            @PluginAttribute(value = "queueSize", defaultInt = 8192) int queueSize,
+            @PluginAttribute(value = "batchSize", defaultInt = 256) int batchSize,
+            @PluginAttribute(value = "flushIntervalMillis", defaultLong = 500) long flushIntervalMillis,
+            @PluginAttribute(value = "overflowPolicy", defaultString = "DROP") String overflowPolicy,
+            @PluginAttribute(value = "blockTimeoutMillis", defaultLong = 100) long blockTimeoutMillis) {
+        if (name == null || url == null) {
+            LOGGER.error("AsyncBatchJdbc appender requires name and url attributes");
+            return null;
+        }
+        return new AsyncBatchJdbcAppender(name, filter, url, user, password, tableName, queueSize,
+                Math.max(1, batchSize), flushIntervalMillis, OverflowPolicy.valueOf(overflowPolicy.toUpperCase()),
+                blockTimeoutMillis);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::runWorker, "log-db-writer-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(timeUnit.toMillis(timeout) > 0 ? timeUnit.toMillis(timeout) : 5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        boolean stopped = worker == null || !worker.isAlive();
+        if (!stopped) {
+            LOGGER.warn("Log database writer {} did not stop in time, {} queued events may be lost",
+                    getName(), queue.size());
+        }
+        setStopped();
+        return stopped;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        Row row = toRow(event);
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(row, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(row);
+        }
+        if (accepted) {
+            queued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWorker() {
+        List<Row> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Row first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    // остановка: дописываем то, что осталось в очереди
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                write(batch);
+                batch.clear();
+            }
+        } finally {
+            closeConnection();
+        }
+    }
+
+    private void write(List<Row> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            PreparedStatement statement = statementFor(batch.size());
+            int index = 1;
+            for (Row row : batch) {
+                statement.setTimestamp(index++, new Timestamp(row.timestamp()));
+                statement.setString(index++, row.level());
+                statement.setString(index++, row.logger());
+                statement.setString(index++, row.message());
+                statement.setString(index++, row.exception());
+            }
+            statement.executeUpdate();
+            if (statement != fullBatchStatement) {
+                statement.close();
+            }
+            written.addAndGet(batch.size());
+        } catch (SQLException e) {
+            dropped.addAndGet(batch.size());
+            LOGGER.error("Failed to write {} log events to {}: {}", batch.size(), tableName, e.getMessage());
+            closeConnection();
+        }
+    }
+
+    // Многострочный INSERT; для полной пачки statement переиспользуется
+    private PreparedStatement statementFor(int rows) throws SQLException {
+        if (connection == null) {
+            connection = DriverManager.getConnection(url, user, password);
+            connection.setAutoCommit(true);
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                        "event_date TIMESTAMP NOT NULL, level VARCHAR(10) NOT NULL, logger VARCHAR(255), " +
+                        "message CLOB, exception CLOB)");
+            }
+        }
+        if (rows == batchSize) {
+            if (fullBatchStatement == null) {
+                fullBatchStatement = connection.prepareStatement(insertSql(rows));
+            }
+            return fullBatchStatement;
+        }
+        return connection.prepareStatement(insertSql(rows));
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName)
+                .append(" (event_date, level, logger, message, exception) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private void closeConnection() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to close log database connection: {}", e.getMessage());
+        } finally {
+            connection = null;
+            fullBatchStatement = null;
+        }
+    }
+
+    private static Row toRow(LogEvent event) {
+        String exception = null;
+        if (event.getThrown() != null) {
+            StringWriter stackTrace = new StringWriter();
+            event.getThrown().printStackTrace(new PrintWriter(stackTrace));
+            exception = stackTrace.toString();
+        }
+        return new Row(event.getTimeMillis(), event.getLevel().name(), event.getLoggerName(),
+                event.getMessage().getFormattedMessage(), exception);
+    }
+}
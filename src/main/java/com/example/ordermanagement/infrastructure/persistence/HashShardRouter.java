@@ -0,0 +1,17 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+// Шард по хэшу user_id. Биты перемешиваются финализатором MurmurHash3 (fmix64), поэтому
+// последовательные id пользователей распределяются по шардам равномерно и без периодичности
+public class HashShardRouter implements ShardRouter {
+
+    @Override
+    public int shardOf(long userId, int shardCount) {
+        long hash = userId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+}
@@ -1,21 +0,0 @@
-package com.example.ordermanagement.infrastructure.persistence;
-
-import com.example.ordermanagement.domain.model.Order;
-import com.example.ordermanagement.domain.repository.OrderRepository;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
-
-import java.math.BigDecimal;
-import java.util.List;
-
-@Repository
-public interface JpaOrderRepository extends JpaRepository<Order, Long>, OrderRepository {
-    @Query("SELECT o FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
-            "AND (:minPrice IS NULL OR o.totalPrice >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR o.totalPrice <= :maxPrice)")
-    List<Order> findByStatusAndPriceRange(@Param("status") Order.OrderStatus status,
-                                          @Param("minPrice") BigDecimal minPrice,
-                                          @Param("maxPrice") BigDecimal maxPrice);
-}
\ No newline at end of file
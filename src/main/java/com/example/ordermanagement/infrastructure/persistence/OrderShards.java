@@ -0,0 +1,289 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.domain.repository.OrderShardAccess;
+import com.example.ordermanagement.infrastructure.concurrent.BackgroundThreads;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Разделение заказов по шардам (orders.sharding.*, см. ShardingDataSourceConfig). Заказ со своими
+// позициями и событиями outbox хранится на шарде владельца (ShardRouter по user_id); шард заказа
+// определяется по его id (ShardedSequenceGenerator). Пользователи есть на каждом шарде (UserShardReplicator).
+// Транзакция работает с одним шардом: bind привязывает к шарду текущую транзакцию, onShard - вызов
+// вне транзакции. Выборки по всем пользователям выполняются на всех шардах параллельно, каждая
+// в своей транзакции (onEachShard), и сливаются по order_id (mergeSorted).
+// Без шардирования шард один: bind и onShard ничего не меняют, а onEachShard выполняет работу
+// один раз в текущем потоке и текущей транзакции.
+@Component
+public class OrderShards implements OrderShardAccess, DisposableBean {
+
+    private final int count;
+    private final ShardRouter router;
+    private final ShardRoutingDataSource routingDataSource;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate readWriteTransaction;
+    private final TransactionTemplate homeLookupTransaction;
+    private final ExecutorService executor;
+
+    @Autowired
+    public OrderShards(ObjectProvider<ShardRoutingDataSource> routingDataSource, ObjectProvider<ShardRouter> router,
+                       PlatformTransactionManager transactionManager, BackgroundThreads backgroundThreads,
+                       @Value("${orders.sharding.fan-out-threads:16}") int fanOutThreads) {
+        this.routingDataSource = routingDataSource.getIfAvailable();
+        this.count = this.routingDataSource != null ? this.routingDataSource.getShardCount() : 1;
+        this.router = router.getIfAvailable(HashShardRouter::new);
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.homeLookupTransaction = new TransactionTemplate(transactionManager);
+        this.homeLookupTransaction.setReadOnly(true);
+        this.homeLookupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = count > 1 ? backgroundThreads.executor("order-shards-", fanOutThreads) : null;
+    }
+
+    private OrderShards() {
+        this.count = 1;
+        this.router = new HashShardRouter();
+        this.routingDataSource = null;
+        this.readOnlyTransaction = null;
+        this.readWriteTransaction = null;
+        this.homeLookupTransaction = null;
+        this.executor = null;
+    }
+
+    // Один шард без маршрутизации - для модульных тестов и бенчмарков без Spring
+    public static OrderShards unsharded() {
+        return new OrderShards();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    @Override
+    public int shardOfUser(Long userId) {
+        return count == 1 ? ShardContext.HOME : router.shardOf(userId, count);
+    }
+
+    @Override
+    public int shardOfOrder(Long orderId) {
+        return count == 1 ? ShardContext.HOME : ShardedSequenceGenerator.shardOf(orderId, count);
+    }
+
+    // Привязывает текущую транзакцию к шарду до ее завершения. Вызывается до первого запроса транзакции:
+    // транзакцию, которая уже работает с другим шардом или привязана к нему, переключить нельзя
+    @Override
+    public void bind(int shard) {
+        if (count == 1) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Binding to shard " + shard + " requires a transaction");
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(this);
+        if (bound == null) {
+            bound = routingDataSource.transactionShard();
+        }
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("Transaction already works with shard " + bound
+                        + " and cannot switch to shard " + shard);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, shard);
+        Integer previous = ShardContext.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OrderShards.this);
+                ShardContext.set(previous);
+            }
+        });
+    }
+
+    // Выполняет work вне транзакции: транзакции и запросы внутри work работают с шардом shard
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return count == 1 ? work.get() : ShardContext.call(shard, work);
+    }
+
+    // Чтение с домашнего шарда в отдельной транзакции: текущая транзакция при этом не привязывается
+    // к домашнему шарду (например, пользователь читается до того, как известен шард его заказов)
+    public <T> T onHomeShard(Supplier<T> work) {
+        if (count == 1) {
+            return work.get();
+        }
+        return ShardContext.call(ShardContext.HOME, () -> homeLookupTransaction.execute(status -> work.get()));
+    }
+
+    // Выполняет work на каждом шарде; результаты - в порядке шардов
+    public <T> List<T> onEachShard(boolean readOnly, IntFunction<T> work) {
+        return onShards(IntStream.range(0, count).boxed().toList(), readOnly, work);
+    }
+
+    // Выполняет work на каждом из shards параллельно, каждый вызов - в своей транзакции (readOnly - только
+    // чтение); результаты - в порядке shards. Без шардирования - один вызов в текущем потоке и транзакции
+    @Override
+    public <T> List<T> onShards(Collection<Integer> shards, boolean readOnly, IntFunction<T> work) {
+        if (count == 1) {
+            return shards.isEmpty() ? List.of() : Collections.singletonList(work.apply(ShardContext.HOME));
+        }
+        TransactionTemplate transaction = readOnly ? readOnlyTransaction : readWriteTransaction;
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(executor.submit(() ->
+                    ShardContext.call(shard, () -> transaction.execute(status -> work.apply(shard)))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while waiting for shard queries", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    // Выборка read со всех шардов (onEachShard, только чтение), слитая по comparator;
+    // read на каждом шарде возвращает список, отсортированный по comparator
+    @Override
+    public <T> List<T> mergeFromEachShard(Comparator<? super T> comparator, Supplier<List<T>> read) {
+        return mergeSorted(onEachShard(true, shard -> read.get()), comparator, Integer.MAX_VALUE);
+    }
+
+    // Страница со всех шардов: каждый шард отдает первые offset + size элементов по comparator,
+    // после слияния первые offset пропускаются. Без шардирования - страница page как есть
+    @Override
+    public <T> List<T> mergePageFromEachShard(Pageable pageable, Comparator<? super T> comparator,
+                                              Function<Pageable, List<T>> page) {
+        if (count == 1) {
+            return page.apply(pageable);
+        }
+        int offset = (int) pageable.getOffset();
+        Pageable shardPage = PageRequest.ofSize(offset + pageable.getPageSize());
+        List<T> merged = mergeSorted(onEachShard(true, shard -> page.apply(shardPage)), comparator,
+                shardPage.getPageSize());
+        return merged.subList(Math.min(offset, merged.size()), merged.size());
+    }
+
+    @Override
+    public <T> Iterator<T> mergeEachShard(IntFunction<Iterator<T>> cursor, Comparator<? super T> comparator) {
+        return mergeSorted(IntStream.range(0, count).mapToObj(cursor).toList(), comparator);
+    }
+
+    // Первые limit элементов из списков, каждый из которых отсортирован по comparator
+    public static <T> List<T> mergeSorted(List<? extends List<T>> sorted, Comparator<? super T> comparator, int limit) {
+        if (sorted.size() == 1) {
+            List<T> single = sorted.get(0);
+            return single.size() <= limit ? single : single.subList(0, limit);
+        }
+        List<T> merged = new ArrayList<>();
+        Iterator<T> iterator = mergeSorted(sorted.stream().map(List::iterator).toList(), comparator);
+        while (merged.size() < limit && iterator.hasNext()) {
+            merged.add(iterator.next());
+        }
+        return merged;
+    }
+
+    // K-way merge отсортированных последовательностей через очередь с приоритетом по текущему элементу
+    // каждой. Источник, из которого взят элемент, продвигается только при следующем обращении,
+    // поэтому к моменту чтения следующего элемента источника вызывающий код уже обработал предыдущий
+    public static <T> Iterator<T> mergeSorted(List<? extends Iterator<T>> sorted, Comparator<? super T> comparator) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.head, b.head));
+        for (Iterator<T> iterator : sorted) {
+            Cursor<T> cursor = new Cursor<>(iterator);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return new Iterator<>() {
+            private Cursor<T> taken;
+
+            @Override
+            public boolean hasNext() {
+                if (taken != null) {
+                    if (taken.advance()) {
+                        heads.add(taken);
+                    }
+                    taken = null;
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                taken = heads.poll();
+                return taken.head;
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Cursor<T> {
+        private final Iterator<T> iterator;
+        private T head;
+
+        private Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Направляет соединения read-only транзакций (@Transactional(readOnly = true)) в пул реплики,
+// остальные - в основной пул. Оборачивается в LazyConnectionDataSourceProxy: признак read-only
+// выставляется уже после начала транзакции, поэтому выбор пула откладывается до первого запроса.
+// Реплика отстает, поэтому чтение идет в основной пул:
+// - у пользователя, который сам изменял данные в последние maxLag (read-your-writes);
+//   пользователь запоминается после коммита пишущей транзакции, в памяти этого экземпляра приложения;
+// - пока отставание реплики, измеренное lagQuery, больше maxLag или не измеряется из-за ошибки.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    static final String ROUTED_COUNTER = "datasource.routing.connections";
+    static final String LAGGING_GAUGE = "datasource.replica.lagging";
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final String lagQuery;
+    // Пользователи, недавно изменявшие данные; запись живет maxLag
+    private final Cache<String, Boolean> recentWriters;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    private volatile boolean replicaLagging;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, String lagQuery,
+                                    MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag)
+                .build();
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryConnections = Counter.builder(ROUTED_COUNTER).tag("target", PRIMARY)
+                .description("Connections routed to the primary or the replica pool")
+                .register(meterRegistry);
+        this.replicaConnections = Counter.builder(ROUTED_COUNTER).tag("target", REPLICA)
+                .description("Connections routed to the primary or the replica pool")
+                .register(meterRegistry);
+        Gauge.builder(LAGGING_GAUGE, this, dataSource -> dataSource.replicaLagging ? 1 : 0)
+                .description("1 while replica reads are sent to the primary because the replica lags")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriterAfterCommit();
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        String username = currentUsername();
+        if (replicaLagging || (username != null && recentWriters.getIfPresent(username) != null)) {
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        replicaConnections.increment();
+        return REPLICA;
+    }
+
+    // Измеряет отставание реплики запросом lagQuery (секунды, например для PostgreSQL
+    // "SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())"); без запроса реплика считается актуальной
+    @Scheduled(fixedDelayString = "${orders.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        if (lagQuery == null) {
+            return;
+        }
+        boolean lagging;
+        try {
+            Number lagSeconds = new JdbcTemplate(replica).queryForObject(lagQuery, Number.class);
+            lagging = lagSeconds != null && lagSeconds.doubleValue() * 1000 > maxLag.toMillis();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to measure replica lag: {}", e.getMessage());
+            lagging = true;
+        }
+        if (lagging != replicaLagging) {
+            logger.info(lagging ? "Replica lags behind, routing reads to the primary" : "Replica caught up");
+            replicaLagging = lagging;
+        }
+    }
+
+    public boolean isReplicaLagging() {
+        return replicaLagging;
+    }
+
+    private void rememberWriterAfterCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        String username = currentUsername();
+        if (username != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(username, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import java.util.function.Supplier;
+
+// Шард, с которым работает текущий поток: по нему ShardRoutingDataSource выбирает пул соединений,
+// а ShardedSequenceGenerator - номер шарда в новом идентификаторе. Пока шард не задан,
+// поток работает с домашним шардом 0 (на нем создаются пользователи и фоновые задачи без шарда).
+// Обычно шард задается через OrderShards, а не напрямую.
+public final class ShardContext {
+
+    public static final int HOME = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : HOME;
+    }
+
+    // Шард, явно заданный в потоке; null - не задан
+    static Integer get() {
+        return CURRENT.get();
+    }
+
+    // Задает шард потока (null - сбрасывает) и возвращает предыдущее значение для восстановления
+    static Integer set(Integer shard) {
+        Integer previous = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    // Выполняет work с заданным шардом и восстанавливает прежний
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = set(shard);
+        try {
+            return work.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+// Выбор шарда для заказов пользователя. По умолчанию - HashShardRouter; бин ShardRouter в контексте
+// заменяет его (например, таблицей соответствия пользователей и шардов). Шард пользователя
+// не должен меняться, пока на шардах есть его заказы.
+public interface ShardRouter {
+
+    int shardOf(long userId, int shardCount);
+}
@@ -0,0 +1,73 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Выдает соединения из пула шарда, заданного в потоке (ShardContext), по умолчанию - домашнего.
+// Оборачивается в LazyConnectionDataSourceProxy, поэтому пул выбирается при первом запросе транзакции,
+// а не при ее начале. Шард, к которому привязалось соединение транзакции, запоминается до ее
+// завершения: по нему OrderShards.bind не дает переключить на другой шард транзакцию, уже работающую с базой.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRoutingDataSource.class);
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardContext.HOME));
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // Шард соединения текущей транзакции; null - транзакция еще не обращалась к базе
+    public Integer transactionShard() {
+        return (Integer) TransactionSynchronizationManager.getResource(this);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ShardContext.current();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && transactionShard() == null) {
+            TransactionSynchronizationManager.bindResource(this, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ShardRoutingDataSource.this);
+                }
+            });
+        }
+        return shard;
+    }
+
+    // Пулы шардов не являются бинами, поэтому закрываются вместе с этим DataSource
+    @Override
+    public void close() {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close shard data source: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
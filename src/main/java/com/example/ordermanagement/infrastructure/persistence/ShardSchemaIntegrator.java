@@ -0,0 +1,47 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Применяет управление схемой Hibernate (spring.jpa.hibernate.ddl-auto) ко всем шардам, кроме домашнего:
+// домашний шард Hibernate обрабатывает сам, так как соединения без заданного шарда идут в него.
+// При create-drop схемы шардов удаляются при закрытии фабрики сессий.
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+    private final List<Runnable> dropActions = new CopyOnWriteArrayList<>();
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        ServiceRegistry serviceRegistry = bootstrapContext.getServiceRegistry();
+        Map<String, Object> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        for (int shard = ShardContext.HOME + 1; shard < shardCount; shard++) {
+            int target = shard;
+            ShardContext.run(target, () -> SchemaManagementToolCoordinator.process(metadata, serviceRegistry,
+                    settings, action -> dropActions.add(() ->
+                            ShardContext.run(target, () -> action.perform(serviceRegistry)))));
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             SessionFactoryServiceRegistry serviceRegistry) {
+        dropActions.forEach(Runnable::run);
+        dropActions.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Последовательность с выдачей идентификаторов блоками (pooled), как у @SequenceGenerator, для N шардов:
+// у каждого шарда своя последовательность в своей базе и свой блок значений, а номер шарда входит
+// в идентификатор: id = value * N + shard. Поэтому идентификаторы не пересекаются между шардами,
+// а шард строки определяется по ее id (shardOf) без обращения к базе. Шард - текущий шард потока
+// (ShardContext), с которым работает и соединение транзакции. При одном шарде id равен значению
+// последовательности. Число шардов - свойство Hibernate SHARD_COUNT (задает ShardingDataSourceConfig).
+// Сущности объявляют обычный @SequenceGenerator, этот генератор подставляет ShardedSequenceStrategyProvider.
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String SHARD_COUNT = "orders.sharding.shard_count";
+
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+    private int shardCount = 1;
+    private String optimizerName;
+    private int incrementSize;
+    private long initialValue;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        super.configure(type, parameters, serviceRegistry);
+        Object count = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SHARD_COUNT);
+        shardCount = count != null ? Integer.parseInt(count.toString()) : 1;
+        incrementSize = getOptimizer().getIncrementSize();
+        optimizerName = determineOptimizationStrategy(parameters, incrementSize);
+        initialValue = determineInitialValue(parameters);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (shardCount == 1) {
+            return super.generate(session, object);
+        }
+        int shard = ShardContext.current();
+        Optimizer optimizer = optimizers.computeIfAbsent(shard, key ->
+                OptimizerFactory.buildOptimizer(optimizerName, Long.class, incrementSize, initialValue));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return value * shardCount + shard;
+    }
+
+    public static int shardOf(long id, int shardCount) {
+        return (int) Math.floorMod(id, (long) shardCount);
+    }
+}
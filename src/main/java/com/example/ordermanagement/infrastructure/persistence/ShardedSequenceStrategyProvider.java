@@ -0,0 +1,21 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.jpa.spi.IdentifierGeneratorStrategyProvider;
+
+import java.util.Map;
+
+// Подставляет ShardedSequenceGenerator вместо генератора, который Hibernate создает для @SequenceGenerator,
+// с теми же параметрами последовательности, поэтому сущности домена не зависят от шардирования.
+// Генераторы создаются фабрикой Hibernate (IdentifierGeneratorFactory) еще при сборке метаданных,
+// и заменить их можно только через нее. Интерфейс помечен к удалению, но предложенная замена
+// (GenerationTypeStrategyRegistration) в Hibernate 6.2 для последовательностей не применяется.
+// Подключается ShardingDataSourceConfig; без шардирования сущности используют обычный генератор.
+@SuppressWarnings("removal")
+public class ShardedSequenceStrategyProvider implements IdentifierGeneratorStrategyProvider {
+
+    @Override
+    public Map<String, Class<?>> getStrategies() {
+        return Map.of(SequenceStyleGenerator.class.getName(), ShardedSequenceGenerator.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.application.service.UserIdentityCache;
+import com.example.ordermanagement.domain.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// Сбрасывает кэш UserIdentityCache при изменении или удалении пользователя и копирует изменение
+// на шарды заказов (UserShardReplicator). Подключается к User в META-INF/orm.xml. Репликатор берется
+// лениво: слушатель создается вместе с EntityManagerFactory, от которой зависит сам репликатор
+@Component
+public class UserChangeListener {
+
+    private final UserIdentityCache userIdentityCache;
+    private final ObjectProvider<UserShardReplicator> shardReplicator;
+
+    public UserChangeListener(UserIdentityCache userIdentityCache,
+                              ObjectProvider<UserShardReplicator> shardReplicator) {
+        this.userIdentityCache = userIdentityCache;
+        this.shardReplicator = shardReplicator;
+    }
+
+    @PostPersist
+    public void onUserCreated(User user) {
+        shardReplicator.ifAvailable(replicator -> replicator.userSaved(user));
+    }
+
+    @PostUpdate
+    public void onUserChanged(User user) {
+        userIdentityCache.invalidate(user.getId());
+        shardReplicator.ifAvailable(replicator -> replicator.userSaved(user));
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        userIdentityCache.invalidate(user.getId());
+        shardReplicator.ifAvailable(replicator -> replicator.userRemoved(user));
+    }
+}
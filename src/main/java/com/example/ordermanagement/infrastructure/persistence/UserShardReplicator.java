@@ -0,0 +1,77 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.domain.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+// При шардировании пользователи - справочная таблица, которая есть на каждом шарде: заказы ссылаются
+// на users внешним ключом и читаются вместе с владельцем. Пользователи создаются и меняются на домашнем
+// шарде, а после коммита строка копируется на остальные шарды с тем же id (UserChangeListener)
+@Component
+public class UserShardReplicator {
+    private static final Logger logger = LoggerFactory.getLogger(UserShardReplicator.class);
+
+    private final OrderShards orderShards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserShardReplicator(OrderShards orderShards, JdbcTemplate jdbcTemplate) {
+        this.orderShards = orderShards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void userSaved(User user) {
+        if (orderShards.isSharded()) {
+            UserRow row = new UserRow(user.getId(), user.getUsername(), user.getPassword(),
+                    user.getRole() != null ? user.getRole().name() : null);
+            afterCommit(() -> onOtherShards(() -> {
+                if (jdbcTemplate.update("UPDATE users SET username = ?, password = ?, role = ? WHERE id = ?",
+                        row.username(), row.password(), row.role(), row.id()) == 0) {
+                    jdbcTemplate.update("INSERT INTO users (id, username, password, role) VALUES (?, ?, ?, ?)",
+                            row.id(), row.username(), row.password(), row.role());
+                }
+            }));
+        }
+    }
+
+    public void userRemoved(User user) {
+        if (orderShards.isSharded()) {
+            Long id = user.getId();
+            afterCommit(() -> onOtherShards(() -> jdbcTemplate.update("DELETE FROM users WHERE id = ?", id)));
+        }
+    }
+
+    private void onOtherShards(Runnable change) {
+        List<Integer> shards = IntStream.range(0, orderShards.count())
+                .filter(shard -> shard != ShardContext.HOME)
+                .boxed()
+                .toList();
+        orderShards.onShards(shards, false, shard -> {
+            change.run();
+            return null;
+        });
+        logger.debug("Replicated user change to {} shards", shards.size());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record UserRow(Long id, String username, String password, String role) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ordermanagement.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Ограничение частоты запросов к /orders (orders.rate-limit.*), см. RateLimitFilter.
+// У каждого пользователя два ведра: для чтения (GET, HEAD) и для изменений; запрос, прошедший ведро
+// пользователя, берет токен еще и из общего ведра, которое защищает пул соединений от всех вместе.
+// Если запрос отклоняет общее ведро, токен возвращается в ведро пользователя: при перегрузке
+// пользователь не расплачивается за невыполненные запросы.
+// Ведра пользователей хранятся в кэше с вытеснением после idle-timeout без запросов и не больше
+// max-users штук. Ведро, простоявшее дольше времени своего наполнения, и так полное, поэтому вытеснение
+// по idle-timeout лимиты не ослабляет. Вытеснение по max-users может удалить ведро активного пользователя
+// (Caffeine выбирает по частоте и давности обращений), и оно создастся заново полным, поэтому max-users
+// задается с запасом больше числа одновременно активных пользователей.
+@Component
+public class RequestRateLimiter {
+
+    static final String THROTTLED_COUNTER = "orders.rate-limit.throttled";
+
+    private final boolean enabled;
+    private final double readRate;
+    private final int readBurst;
+    private final double writeRate;
+    private final int writeBurst;
+    private final Cache<String, TokenBucket> readBuckets;
+    private final Cache<String, TokenBucket> writeBuckets;
+    private final TokenBucket globalBucket;
+    private final Counter readThrottled;
+    private final Counter writeThrottled;
+    private final Counter globalThrottled;
+
+    public RequestRateLimiter(MeterRegistry meterRegistry,
+                              @Value("${orders.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${orders.rate-limit.read.rate:50}") double readRate,
+                              @Value("${orders.rate-limit.read.burst:100}") int readBurst,
+                              @Value("${orders.rate-limit.write.rate:10}") double writeRate,
+                              @Value("${orders.rate-limit.write.burst:20}") int writeBurst,
+                              @Value("${orders.rate-limit.global.rate:1000}") double globalRate,
+                              @Value("${orders.rate-limit.global.burst:2000}") int globalBurst,
+                              @Value("${orders.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                              @Value("${orders.rate-limit.max-users:100000}") long maxUsers) {
+        this.enabled = enabled;
+        this.readRate = readRate;
+        this.readBurst = readBurst;
+        this.writeRate = writeRate;
+        this.writeBurst = writeBurst;
+        this.readBuckets = buckets(idleTimeout, maxUsers);
+        this.writeBuckets = buckets(idleTimeout, maxUsers);
+        this.globalBucket = new TokenBucket(globalRate, globalBurst, System.nanoTime());
+        this.readThrottled = throttledCounter(meterRegistry, "read");
+        this.writeThrottled = throttledCounter(meterRegistry, "write");
+        this.globalThrottled = throttledCounter(meterRegistry, "global");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 0, если запрос можно выполнять; иначе сколько наносекунд клиенту ждать до повтора
+    public long acquire(String username, boolean write) {
+        long now = System.nanoTime();
+        TokenBucket userBucket = write
+                ? writeBuckets.get(username, key -> new TokenBucket(writeRate, writeBurst, now))
+                : readBuckets.get(username, key -> new TokenBucket(readRate, readBurst, now));
+        long wait = userBucket.tryAcquire(now);
+        if (wait > 0) {
+            (write ? writeThrottled : readThrottled).increment();
+            return wait;
+        }
+        wait = globalBucket.tryAcquire(now);
+        if (wait > 0) {
+            userBucket.refund();
+            globalThrottled.increment();
+        }
+        return wait;
+    }
+
+    private static Cache<String, TokenBucket> buckets(Duration idleTimeout, long maxUsers) {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder(THROTTLED_COUNTER)
+                .description("Requests to /orders rejected with 429 by the rate limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
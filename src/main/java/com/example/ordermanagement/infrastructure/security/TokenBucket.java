@@ -0,0 +1,39 @@
+package com.example.ordermanagement.infrastructure.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket без блокировок. Вместо числа токенов хранится момент, к которому ведро снова наполнится
+// (GCRA): каждый запрос сдвигает его на время пополнения одного токена, и запрос проходит, пока этот момент
+// не дальше емкости ведра от текущего времени. Состояние - один AtomicLong, взятие токена - один CAS.
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double tokensPerSecond, int burst, long now) {
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.capacityNanos = nanosPerToken * Math.max(1, burst);
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // 0, если токен взят; иначе сколько наносекунд ждать следующего токена
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Возвращает взятый токен (запрос все-таки не выполняется)
+    void refund() {
+        fullAt.addAndGet(-nanosPerToken);
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.ordermanagement.presentation.controller;
 
+        import com.example.ordermanagement.domain.model.User;
+        import com.example.ordermanagement.infrastructure.security.TokenService;
         import org.springframework.http.ResponseEntity;
         import org.springframework.security.core.Authentication;
-        import org.springframework.security.core.context.SecurityContextHolder;
         import org.springframework.web.bind.annotation.PostMapping;
         import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class AuthController {
 
+    public static final String TOKEN_HEADER = "X-Auth-Token";
+
+    private final TokenService tokenService;
+
+    public AuthController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // Для пользователей приложения возвращает bearer-токен в заголовке X-Auth-Token.
+    // Дальнейшие запросы с "Authorization: Bearer <token>" не проверяют пароль через BCrypt.
     @PostMapping("/login")
     public ResponseEntity<String> login(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(401).body("Authentication required");
         }
-        return ResponseEntity.ok("User authenticated: " + authentication.getName());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (authentication.getPrincipal() instanceof User user) {
+            response.header(TOKEN_HEADER, tokenService.issue(user));
+        }
+        return response.body("User authenticated: " + authentication.getName());
     }
 }
-
@@ -1,12 +1,17 @@
 package com.example.ordermanagement.presentation.controller;
 
+import com.example.ordermanagement.presentation.dto.MeterSnapshotDTO;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.List;
 
+// Снимок метрик для администратора: каждый метр с тегами, всеми статистиками и перцентилями.
+// Для сбора метрик Prometheus используется /actuator/prometheus.
 @RestController
 public class MetricsController {
 
@@ -16,13 +21,14 @@ public class MetricsController {
         this.meterRegistry = meterRegistry;
     }
 
+    // name - необязательный префикс имени метрики, например "http.server" или "hikaricp"
     @GetMapping("/metrics")
-    public Map<String, Double> getMetrics() {
-        Map<String, Double> metrics = new HashMap<>();
-        meterRegistry.getMeters().forEach(meter -> {
-            metrics.put(meter.getId().getName(), meter.measure().iterator().next().getValue());
-        });
-        return metrics;
+    public List<MeterSnapshotDTO> getMetrics(@RequestParam(required = false) String name) {
+        return meterRegistry.getMeters().stream()
+                .filter(meter -> name == null || meter.getId().getName().startsWith(name))
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                        .thenComparing(meter -> meter.getId().getTags().toString()))
+                .map(MeterSnapshotDTO::fromMeter)
+                .toList();
     }
 }
-
@@ -1,8 +1,23 @@
 package com.example.ordermanagement.presentation.controller;
 
+import com.example.ordermanagement.application.service.IdempotentOrderService;
+import com.example.ordermanagement.application.service.OrderBatchResult;
 import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.application.service.OrderStatsService;
+import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
 import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.OrderStats;
+import com.example.ordermanagement.domain.model.UserIdentity;
+import com.example.ordermanagement.presentation.dto.OrderBatchResultDTO;
+import com.example.ordermanagement.presentation.dto.JsonPatch;
 import com.example.ordermanagement.presentation.dto.OrderDTO;
+import com.example.ordermanagement.presentation.dto.OrderStatsDTO;
+import com.example.ordermanagement.presentation.dto.OrderStatusChangeDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -12,15 +27,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/orders")
@@ -31,10 +59,26 @@ import java.util.List;
 )
 public class OrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final OrderStatusStream orderStatusStream;
+    private final OrderStatsService orderStatsService;
+    private final IdempotentOrderService idempotentOrderService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, ObjectMapper objectMapper, Validator validator,
+                           OrderStatusStream orderStatusStream, OrderStatsService orderStatsService,
+                           IdempotentOrderService idempotentOrderService) {
         this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.orderStatusStream = orderStatusStream;
+        this.orderStatsService = orderStatsService;
+        this.idempotentOrderService = idempotentOrderService;
     }
 
     // Создать новый заказ
@@ -42,6 +86,9 @@ public class OrderController {
     // Он доступен как пользователям, так и администраторам.
     // Метод принимает данные заказа в формате DTO, преобразует их в сущность Order,
     // сохраняет заказ через orderService и возвращает созданный заказ в формате DTO.
+    // Если передан заголовок Idempotency-Key, повтор запроса с тем же ключом не создает второй заказ,
+    // а возвращает ответ на первый запрос с заголовком Idempotent-Replayed: true.
+    // Тот же ключ с другими данными заказа отклоняется с кодом 422.
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Create a new order",
@@ -50,11 +97,74 @@ public class OrderController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Order created successfully",
                             content = @Content(schema = @Schema(implementation = OrderDTO.class))),
-                    @ApiResponse(responseCode = "400", description = "Invalid order data")
+                    @ApiResponse(responseCode = "400", description = "Invalid order data"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used with different order data")
             })
-    public ResponseEntity<OrderDTO> createOrder(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody OrderDTO orderDTO) {
-        Order order = orderService.createOrder(userDetails.getUsername(), OrderDTO.toEntity(orderDTO));
-        return ResponseEntity.ok(OrderDTO.fromEntity(order));
+    public ResponseEntity<?> createOrder(@AuthenticationPrincipal UserDetails userDetails,
+                                         @Parameter(description = "Key that makes retries of this request safe")
+                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey,
+                                         @Valid @RequestBody OrderDTO orderDTO) throws JsonProcessingException {
+        if (idempotencyKey == null) {
+            Order order = orderService.createOrder(userDetails.getUsername(), OrderDTO.toEntity(orderDTO));
+            return ResponseEntity.ok(OrderDTO.fromEntity(order));
+        }
+        IdempotentOrderService.IdempotentResponse response = idempotentOrderService.createOrder(
+                userDetails.getUsername(), idempotencyKey, objectMapper.writeValueAsString(orderDTO),
+                OrderDTO.toEntity(orderDTO), this::render);
+        // Сохраненный JSON отдается как есть: повтор получает тот же ответ, что и первый запрос
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(response.replayed()))
+                .body(response.body());
+    }
+
+    // Создать пачку заказов
+    // Этот метод обрабатывает POST-запросы для массовой загрузки заказов из внешних систем.
+    // Он доступен как пользователям, так и администраторам.
+    // Каждый заказ проверяется так же, как тело запроса на создание одного заказа, но ошибка в одном заказе
+    // не отклоняет весь запрос: для каждого элемента возвращается статус CREATED с ID заказа
+    // или REJECTED с причиной, в порядке элементов запроса.
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Create orders in bulk",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"User Operations", "Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                            content = @Content(schema = @Schema(implementation = OrderBatchResultDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+            })
+    public ResponseEntity<List<OrderBatchResultDTO>> createOrders(@AuthenticationPrincipal UserDetails userDetails,
+                                                                  @RequestBody List<OrderDTO> orderDTOs) {
+        OrderBatchResult[] results = new OrderBatchResult[orderDTOs.size()];
+        List<Order> orders = new ArrayList<>(orderDTOs.size());
+        List<Integer> positions = new ArrayList<>(orderDTOs.size());
+        for (int i = 0; i < orderDTOs.size(); i++) {
+            OrderDTO orderDTO = orderDTOs.get(i);
+            if (orderDTO == null) {
+                results[i] = OrderBatchResult.rejected(i, "Order cannot be null");
+                continue;
+            }
+            String violation = firstViolation(orderDTO);
+            if (violation != null) {
+                results[i] = OrderBatchResult.rejected(i, violation);
+                continue;
+            }
+            try {
+                orders.add(OrderDTO.toEntity(orderDTO));
+                positions.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = OrderBatchResult.rejected(i, "Invalid order status: " + orderDTO.getStatus());
+            }
+        }
+        if (!orders.isEmpty() || orderDTOs.isEmpty()) {
+            for (OrderBatchResult result : orderService.createOrders(userDetails.getUsername(), orders)) {
+                int position = positions.get(result.index());
+                results[position] = new OrderBatchResult(position, result.orderId(), result.error());
+            }
+        }
+        return ResponseEntity.ok(Arrays.stream(results).map(OrderBatchResultDTO::fromResult).toList());
     }
 
     // Обновить существующий заказ
@@ -63,6 +173,8 @@ public class OrderController {
     // Метод принимает ID заказа и обновленные данные в формате DTO,
     // обновляет заказ через orderService и возвращает обновленный заказ в формате DTO.
     // Если заказ не найден или пользователь не имеет прав на его обновление, будет выброшено исключение.
+    // Если передан заголовок If-Match, заказ обновляется только при совпадении версии из ETag,
+    // иначе возвращается 412 (Precondition Failed).
     @PutMapping("/{orderId}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Update an existing order",
@@ -72,11 +184,66 @@ public class OrderController {
                     @ApiResponse(responseCode = "200", description = "Order updated successfully",
                             content = @Content(schema = @Schema(implementation = OrderDTO.class))),
                     @ApiResponse(responseCode = "400", description = "Invalid order data"),
-                    @ApiResponse(responseCode = "404", description = "Order not found")
+                    @ApiResponse(responseCode = "404", description = "Order not found"),
+                    @ApiResponse(responseCode = "412", description = "Order was modified since the version in If-Match")
+            })
+    public ResponseEntity<OrderDTO> updateOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long orderId,
+                                                @Parameter(description = "ETag of the order version being updated")
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @Valid @RequestBody OrderDTO orderDTO) {
+        Order order = orderService.updateOrder(userDetails.getUsername(), orderId, OrderDTO.toEntity(orderDTO),
+                expectedVersion(orderId, ifMatch));
+        return withETag(order);
+    }
+
+    // Частично обновить заказ
+    // Этот метод обрабатывает PATCH-запросы в формате JSON Patch (RFC 6902), чтобы клиент
+    // мог передать только изменения, а не заказ целиком.
+    // Он доступен как пользователям, так и администраторам.
+    // Патч применяется к текущему представлению заказа (позиции адресуются как /products/N,
+    // productId в них сохраняется), результат проверяется так же, как тело PUT-запроса,
+    // и сохраняется через orderService: SQL выполняется только для измененных позиций.
+    // Заказ сохраняется, только если его версия не изменилась с момента применения патча
+    // (или совпадает с If-Match, если он передан), иначе возвращается 412.
+    @PatchMapping(value = "/{orderId}", consumes = JsonPatch.MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Patch an existing order with JSON Patch",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"User Operations", "Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order updated successfully",
+                            content = @Content(schema = @Schema(implementation = OrderDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid patch or resulting order data"),
+                    @ApiResponse(responseCode = "404", description = "Order not found"),
+                    @ApiResponse(responseCode = "412", description = "Order was modified since the version in If-Match")
             })
-    public ResponseEntity<OrderDTO> updateOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long orderId, @Valid @RequestBody OrderDTO orderDTO) {
-        Order order = orderService.updateOrder(userDetails.getUsername(), orderId, OrderDTO.toEntity(orderDTO));
-        return ResponseEntity.ok(OrderDTO.fromEntity(order));
+    public ResponseEntity<OrderDTO> patchOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long orderId,
+                                               @Parameter(description = "ETag of the order version being patched")
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestBody JsonNode patch) {
+        String username = userDetails.getUsername();
+        Long expectedVersion = expectedVersion(orderId, ifMatch);
+        OrderDTO current = OrderDTO.fromEntity(orderService.getOrder(username, orderId));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OrderVersionConflictException(orderId);
+        }
+        OrderDTO patched;
+        try {
+            patched = objectMapper.treeToValue(JsonPatch.apply(patch, objectMapper.valueToTree(current)), OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidOrderException("Patched order is not a valid order: " + e.getOriginalMessage());
+        }
+        String violation = firstViolation(patched);
+        if (violation != null) {
+            throw new InvalidOrderException(violation);
+        }
+        Order order;
+        try {
+            order = OrderDTO.toEntity(patched);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException("Invalid order status: " + patched.getStatus());
+        }
+        return withETag(orderService.updateOrder(username, orderId, order, current.getVersion()));
     }
 
     // Получить список заказов
@@ -85,6 +252,9 @@ public class OrderController {
     // Метод поддерживает фильтрацию по статусу заказа и диапазону цен.
     // Для пользователей возвращаются только их собственные заказы,
     // для администраторов - все заказы в системе.
+    // Результат разбит на страницы по order_id: если страница заполнена целиком,
+    // в заголовке X-Next-Cursor возвращается значение для параметра after следующего запроса.
+    // Заказы читаются сразу в неизменяемые снимки (OrderSnapshot), без загрузки сущностей.
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Get orders",
@@ -96,13 +266,111 @@ public class OrderController {
                     @ApiResponse(responseCode = "400", description = "Invalid request parameters")
             })
     public ResponseEntity<List<OrderDTO>> getOrders(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Order status") @RequestParam(required = false) String status,
+            @Parameter(description = "Minimum order price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum order price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Return orders with ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of orders to return") @RequestParam(defaultValue = "100") int limit) {
+        Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
+        List<OrderSnapshot> orders = orderService.getOrderViews(userDetails.getUsername(), orderStatus,
+                minPrice, maxPrice, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(orders.get(orders.size() - 1).orderId()));
+        }
+        return response.body(orders.stream().map(OrderDTO::fromSnapshot).toList());
+    }
+
+    // Получить статистику по заказам
+    // Этот метод обрабатывает GET-запросы для получения количества, суммы, среднего, минимума и максимума
+    // стоимости заказов, сгруппированных по статусу, пользователю и периоду создания (час, день или месяц).
+    // Он доступен как пользователям, так и администраторам.
+    // Для пользователей считается статистика по их собственным заказам,
+    // для администраторов - по всем заказам в системе.
+    // Агрегаты вычисляются в базе данных, заказы при этом не загружаются.
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get order totals grouped by status, user and period",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"User Operations", "Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stats retrieved successfully",
+                            content = @Content(schema = @Schema(implementation = OrderStatsDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request parameters")
+            })
+    public List<OrderStatsDTO> getOrderStats(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Period length: HOUR, DAY or MONTH") @RequestParam(defaultValue = "DAY") String period,
+            @Parameter(description = "Include orders created at or after this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Include orders created before this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        OrderStats.Period statsPeriod;
+        try {
+            statsPeriod = OrderStats.Period.valueOf(period.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException("Invalid stats period: " + period);
+        }
+        return orderStatsService.getStats(userDetails.getUsername(), statsPeriod, from, to).stream()
+                .map(OrderStatsDTO::fromStats)
+                .toList();
+    }
+
+    // Выгрузить заказы потоком
+    // Этот метод обрабатывает GET-запросы для выгрузки всех подходящих заказов в формате NDJSON
+    // (один JSON-объект заказа на строку). Фильтры и права доступа такие же, как у списка заказов.
+    // Заказы читаются из базы курсором и пишутся в ответ по одному, поэтому расход памяти
+    // не зависит от размера выгрузки.
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Export orders as NDJSON stream",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"User Operations", "Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Orders streamed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid request parameters")
+            })
+    public ResponseEntity<StreamingResponseBody> exportOrders(
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "Order status") @RequestParam(required = false) String status,
             @Parameter(description = "Minimum order price") @RequestParam(required = false) BigDecimal minPrice,
             @Parameter(description = "Maximum order price") @RequestParam(required = false) BigDecimal maxPrice) {
         Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
-        List<Order> orders = orderService.getOrders(userDetails.getUsername(), orderStatus, minPrice, maxPrice);
-        return ResponseEntity.ok(orders.stream().map(OrderDTO::fromEntity).toList());
+        String username = userDetails.getUsername();
+        StreamingResponseBody body = out -> orderService.streamOrders(username, orderStatus, minPrice, maxPrice, order -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(OrderDTO.fromEntity(order)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Подписаться на изменения статусов заказов
+    // Этот метод обрабатывает GET-запросы на поток Server-Sent Events с изменениями статусов заказов
+    // вместо периодического опроса списка заказов.
+    // Он доступен как пользователям, так и администраторам.
+    // Пользователи получают изменения только своих заказов, администраторы - всех заказов.
+    // Каждое событие имеет id; при переподключении клиент передает последний полученный id
+    // в заголовке Last-Event-ID и получает пропущенные изменения.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Stream order status changes as Server-Sent Events",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"User Operations", "Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream of order-status events",
+                            content = @Content(schema = @Schema(implementation = OrderStatusChangeDTO.class)))
+            })
+    public SseEmitter streamOrderStatuses(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "ID of the last received event to resume from")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        UserIdentity user = orderService.resolveUser(userDetails.getUsername());
+        return orderStatusStream.subscribe(user.isAdmin() ? null : user.id(), lastEventId);
     }
 
     // Получить конкретный заказ
@@ -111,6 +379,7 @@ public class OrderController {
     // Метод принимает ID заказа и возвращает информацию о нем в формате DTO.
     // Пользователи могут получить информацию только о своих заказах,
     // администраторы имеют доступ к информации о любом заказе.
+    // Заказ читается в неизменяемый снимок: при промахе кэша - одним запросом без создания сущностей.
     @GetMapping("/{orderId}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Get a specific order",
@@ -122,8 +391,12 @@ public class OrderController {
                     @ApiResponse(responseCode = "404", description = "Order not found")
             })
     public ResponseEntity<OrderDTO> getOrder(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long orderId) {
-        Order order = orderService.getOrder(userDetails.getUsername(), orderId);
-        return ResponseEntity.ok(OrderDTO.fromEntity(order));
+        OrderSnapshot order = orderService.getOrderView(userDetails.getUsername(), orderId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (order.version() != null) {
+            response.eTag(String.valueOf(order.version()));
+        }
+        return response.body(OrderDTO.fromSnapshot(order));
     }
 
     // Удалить заказ
@@ -145,6 +418,25 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    // Удалить несколько заказов
+    // Этот метод обрабатывает DELETE-запросы для удаления пачки заказов по списку ID (ids=1,2,3).
+    // Он доступен только администраторам.
+    // Заказы помечаются удаленными одним UPDATE, без загрузки каждого заказа.
+    // Метод возвращает ID удаленных заказов; несуществующие и уже удаленные ID пропускаются.
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Delete several orders",
+            security = @SecurityRequirement(name = "basicAuth"),
+            tags = {"Admin Operations"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "IDs of the deleted orders"),
+                    @ApiResponse(responseCode = "400", description = "No IDs or too many IDs given")
+            })
+    public List<Long> deleteOrders(
+            @Parameter(description = "IDs of the orders to delete") @RequestParam List<Long> ids) {
+        return orderService.deleteOrders(ids);
+    }
+
     // Получить информацию о текущем пользователе
     // Этот метод обрабатывает GET-запросы для получения информации о текущем аутентифицированном пользователе.
     // Он доступен как пользователям, так и администраторам.
@@ -158,6 +450,51 @@ public class OrderController {
         return ResponseEntity.ok("Current user: " + userDetails.getUsername() +
                 ", Roles: " + userDetails.getAuthorities());
     }
-}
 
+    // Ответ на создание заказа в том виде, в каком он сохраняется для повторов с Idempotency-Key
+    private String render(Order order) {
+        try {
+            return objectMapper.writeValueAsString(OrderDTO.fromEntity(order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getOrderId(), e);
+        }
+    }
+
+    // Первое нарушение ограничений заказа в виде "поле: сообщение"; null, если заказ корректен
+    private String firstViolation(OrderDTO orderDTO) {
+        Set<ConstraintViolation<OrderDTO>> violations = validator.validate(orderDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        ConstraintViolation<OrderDTO> violation = violations.iterator().next();
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    private static ResponseEntity<OrderDTO> withETag(Order order) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (order.getVersion() != null) {
+            response.eTag(String.valueOf(order.getVersion()));
+        }
+        return response.body(OrderDTO.fromEntity(order));
+    }
 
+    // Версия из If-Match: "*" и отсутствие заголовка - без проверки версии;
+    // значение, которое не может быть версией заказа, заведомо не совпадает с текущей
+    private static Long expectedVersion(Long orderId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new OrderVersionConflictException(orderId);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.ordermanagement.presentation.controller;
+
+import com.example.ordermanagement.application.event.OrderEventsDispatched;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import com.example.ordermanagement.infrastructure.concurrent.BackgroundThreads;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import com.example.ordermanagement.presentation.dto.OrderStatusChangeDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+// Поток изменений статусов заказов для GET /orders/stream (Server-Sent Events).
+// Источник - пачки событий outbox после их обработки (OrderEventsDispatched); id события SSE - id записи outbox.
+// Порядок id не совпадает с порядком коммитов (id выдаются пачками, при шардировании у каждого шарда свои),
+// поэтому события отправляются в порядке публикации, а не id: живые - в порядке поступления, дочитка из outbox -
+// по (publishedAt, id). Повторы отсекаются по окну недавно отправленных id, а не по сравнению id.
+// У каждого подписчика ограниченный буфер неотправленных событий: повторные изменения одного заказа
+// схлопываются в последнее, а при переполнении поток закрывается, и клиент переподключается с Last-Event-ID.
+// По Last-Event-ID пропущенные события дочитываются из outbox страницами, начиная со времени публикации
+// события Last-Event-ID минус replayOverlap, затем поток переходит на живые события. Перекрытие покрывает
+// события, опубликованные почти одновременно с последним полученным, поэтому после переподключения часть
+// событий может прийти повторно, но не теряется. Опубликованные события хранятся orders.events.retention
+// (OrderOutboxCleaner); если события Last-Event-ID в outbox уже нет, дочитывается все, что осталось.
+// Отправка выполняется в отдельном пуле потоков, поэтому медленный клиент не задерживает доставку остальным.
+// При шардировании события пользователя дочитываются с его шарда, события всех заказов - со всех шардов
+// со слиянием по (publishedAt, id).
+@Component
+public class OrderStatusStream implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusStream.class);
+
+    static final String EVENT_NAME = "order-status";
+    private static final int REPLAY_PAGE_SIZE = 100;
+    private static final Comparator<OrderOutboxEvent> BY_PUBLICATION = Comparator
+            .comparing(OrderOutboxEvent::getPublishedAt)
+            .thenComparing(OrderOutboxEvent::getId);
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderShards orderShards;
+    private final int bufferSize;
+    private final int sentWindow;
+    private final Duration timeout;
+    private final Duration replayOverlap;
+    private final ExecutorService senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public OrderStatusStream(OrderOutboxRepository outboxRepository, OrderShards orderShards,
+                             BackgroundThreads backgroundThreads,
+                             @Value("${orders.stream.buffer-size:256}") int bufferSize,
+                             @Value("${orders.stream.timeout:30m}") Duration timeout,
+                             @Value("${orders.stream.sender-threads:4}") int senderThreads,
+                             @Value("${orders.stream.replay-overlap:5s}") Duration replayOverlap) {
+        this.outboxRepository = outboxRepository;
+        this.orderShards = orderShards;
+        this.bufferSize = bufferSize;
+        // События, пришедшие живыми во время дочитки (не больше буфера), дочитка отправляет последними
+        // страницами; окно с запасом на страницу их покрывает. Окно только сокращает повторы
+        this.sentWindow = bufferSize + REPLAY_PAGE_SIZE;
+        this.timeout = timeout;
+        this.replayOverlap = replayOverlap;
+        this.senders = backgroundThreads.executor("order-stream-sender-", senderThreads);
+    }
+
+    // Подписка на изменения статусов заказов пользователя userId (null - всех заказов, для администратора).
+    // lastEventId - id последнего полученного события; более поздние события будут дочитаны из outbox
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, userId, lastEventId, sentWindow);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        if (lastEventId != null) {
+            schedule(subscriber);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onEventsDispatched(OrderEventsDispatched dispatched) {
+        for (Subscriber subscriber : subscribers) {
+            boolean accepted = false;
+            for (OrderOutboxEvent event : dispatched.events()) {
+                if (subscriber.canSee(event)) {
+                    accepted |= offer(subscriber, event);
+                }
+            }
+            if (accepted) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+        subscribers.forEach(this::close);
+    }
+
+    // Кладет событие в конец буфера подписчика, заменяя еще не отправленное событие того же заказа:
+    // живые события приходят в порядке публикации, поэтому пришедшее позже - более новое
+    private boolean offer(Subscriber subscriber, OrderOutboxEvent event) {
+        synchronized (subscriber) {
+            if (subscriber.closed || subscriber.sentIds.containsKey(event.getId())) {
+                return false;
+            }
+            Long previous = subscriber.pendingByOrder.get(event.getOrderId());
+            if (previous != null) {
+                subscriber.pending.remove(previous);
+            }
+            long sequence = subscriber.nextSequence++;
+            subscriber.pendingByOrder.put(event.getOrderId(), sequence);
+            subscriber.pending.put(sequence, event);
+            if (subscriber.pending.size() > bufferSize) {
+                logger.info("Order status stream buffer overflow, closing stream for userId={}", subscriber.userId);
+                closeLocked(subscriber);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.scheduled || subscriber.closed) {
+                return;
+            }
+            subscriber.scheduled = true;
+        }
+        senders.execute(() -> drain(subscriber));
+    }
+
+    // Позиция, с которой дочитываются события после Last-Event-ID: время его публикации минус перекрытие
+    private ReplayPosition resumePosition(Long lastEventId) {
+        Instant from = orderShards.onShard(orderShards.shardOfOrder(lastEventId),
+                        () -> outboxRepository.findById(lastEventId))
+                .map(OrderOutboxEvent::getPublishedAt)
+                .map(publishedAt -> publishedAt.minus(replayOverlap))
+                .orElse(Instant.EPOCH);
+        return new ReplayPosition(from, Long.MIN_VALUE);
+    }
+
+    private List<OrderOutboxEvent> replayPage(Long userId, ReplayPosition after) {
+        PageRequest page = PageRequest.ofSize(REPLAY_PAGE_SIZE);
+        if (userId != null) {
+            return orderShards.onShard(orderShards.shardOfUser(userId),
+                    () -> outboxRepository.findPublishedByUserAfter(userId, after.publishedAt(), after.id(), page));
+        }
+        return orderShards.mergePageFromEachShard(page, BY_PUBLICATION,
+                shardPage -> outboxRepository.findPublishedAfter(after.publishedAt(), after.id(), shardPage));
+    }
+
+    // Отправляет подписчику сначала пропущенные события из outbox, затем буфер, в порядке публикации
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                Long resumeAfter;
+                ReplayPosition replayAfter;
+                synchronized (subscriber) {
+                    resumeAfter = subscriber.resumeAfter;
+                    replayAfter = subscriber.replayAfter;
+                }
+                if (resumeAfter != null) {
+                    ReplayPosition position = resumePosition(resumeAfter);
+                    synchronized (subscriber) {
+                        subscriber.resumeAfter = null;
+                        subscriber.replayAfter = position;
+                    }
+                    continue;
+                }
+                if (replayAfter != null) {
+                    List<OrderOutboxEvent> page = replayPage(subscriber.userId, replayAfter);
+                    for (OrderOutboxEvent event : coalesce(page)) {
+                        send(subscriber, event);
+                    }
+                    synchronized (subscriber) {
+                        subscriber.replayAfter = page.size() < REPLAY_PAGE_SIZE ? null
+                                : ReplayPosition.of(page.get(page.size() - 1));
+                    }
+                    continue;
+                }
+                OrderOutboxEvent next;
+                synchronized (subscriber) {
+                    Map.Entry<Long, OrderOutboxEvent> first = subscriber.pending.pollFirstEntry();
+                    if (first == null || subscriber.closed) {
+                        subscriber.scheduled = false;
+                        return;
+                    }
+                    next = first.getValue();
+                    subscriber.pendingByOrder.remove(next.getOrderId(), first.getKey());
+                }
+                send(subscriber, next);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Order status stream closed for userId={}: {}", subscriber.userId, e.getMessage());
+            subscribers.remove(subscriber);
+            synchronized (subscriber) {
+                subscriber.closed = true;
+                subscriber.scheduled = false;
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, OrderOutboxEvent event) throws IOException {
+        synchronized (subscriber) {
+            if (subscriber.closed || subscriber.sentIds.containsKey(event.getId())) {
+                return;
+            }
+        }
+        subscriber.emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name(EVENT_NAME)
+                .data(OrderStatusChangeDTO.fromEvent(event), MediaType.APPLICATION_JSON));
+        synchronized (subscriber) {
+            subscriber.sentIds.put(event.getId(), Boolean.TRUE);
+        }
+    }
+
+    // Из страницы outbox (в порядке публикации) оставляем только последнее изменение каждого заказа
+    private static List<OrderOutboxEvent> coalesce(List<OrderOutboxEvent> page) {
+        Map<Long, OrderOutboxEvent> latest = new LinkedHashMap<>();
+        for (OrderOutboxEvent event : page) {
+            latest.put(event.getOrderId(), event);
+        }
+        return latest.values().stream().sorted(BY_PUBLICATION).toList();
+    }
+
+    private void close(Subscriber subscriber) {
+        synchronized (subscriber) {
+            closeLocked(subscriber);
+        }
+    }
+
+    private void closeLocked(Subscriber subscriber) {
+        if (!subscriber.closed) {
+            subscriber.closed = true;
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    // Позиция дочитки outbox: события, опубликованные после publishedAt, или в тот же момент с большим id
+    private record ReplayPosition(Instant publishedAt, Long id) {
+        private static ReplayPosition of(OrderOutboxEvent event) {
+            return new ReplayPosition(event.getPublishedAt(), event.getId());
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        // Неотправленные события в порядке поступления и номер неотправленного события каждого заказа
+        private final TreeMap<Long, OrderOutboxEvent> pending = new TreeMap<>();
+        private final Map<Long, Long> pendingByOrder = new HashMap<>();
+        private long nextSequence;
+        // id последних отправленных событий (окно ограниченного размера) - для отсечения повторов
+        private final LinkedHashMap<Long, Boolean> sentIds;
+        // Last-Event-ID, позиция дочитки после которого еще не определена
+        private Long resumeAfter;
+        // Позиция, после которой еще нужно дочитать события из outbox; null - дочитывать нечего
+        private ReplayPosition replayAfter;
+        private boolean scheduled;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter, Long userId, Long lastEventId, int sentWindow) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.sentIds = new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > sentWindow;
+                }
+            };
+            if (lastEventId != null) {
+                sentIds.put(lastEventId, Boolean.TRUE);
+            }
+            this.resumeAfter = lastEventId;
+        }
+
+        private boolean canSee(OrderOutboxEvent event) {
+            return userId == null || userId.equals(event.getUserId());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.ordermanagement.presentation.dto;
+
+import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Comparator;
+
+// Применение JSON Patch (RFC 6902) к дереву Jackson.
+// Поддерживаются операции add, remove, replace, move, copy и test.
+// Ошибки в патче (неизвестная операция, несуществующий путь, проваленный test)
+// приводят к InvalidOrderException, то есть к ответу 400.
+public final class JsonPatch {
+
+    public static final String MEDIA_TYPE = "application/json-patch+json";
+
+    // Числа сравниваем по значению: 1 из патча равно 1L или 1.0 из документа
+    private static final Comparator<JsonNode> NUMERIC_AWARE = (a, b) -> {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    };
+
+    private JsonPatch() {
+    }
+
+    // Применяем патч к копии документа; исходный документ не изменяется
+    public static JsonNode apply(JsonNode patch, JsonNode document) {
+        if (patch == null || !patch.isArray()) {
+            throw new InvalidOrderException("JSON Patch must be an array of operations");
+        }
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            result = applyOperation(operation, result);
+        }
+        return result;
+    }
+
+    private static JsonNode applyOperation(JsonNode operation, JsonNode document) {
+        String op = requiredText(operation, "op");
+        JsonPointer path = pointer(requiredText(operation, "path"));
+        switch (op) {
+            case "add":
+                return add(document, path, requiredValue(operation));
+            case "remove":
+                remove(document, path);
+                return document;
+            case "replace":
+                remove(document, path);
+                return add(document, path, requiredValue(operation));
+            case "move": {
+                JsonPointer from = pointer(requiredText(operation, "from"));
+                JsonNode value = get(document, from);
+                remove(document, from);
+                return add(document, path, value);
+            }
+            case "copy": {
+                JsonPointer from = pointer(requiredText(operation, "from"));
+                return add(document, path, get(document, from).deepCopy());
+            }
+            case "test":
+                if (!get(document, path).equals(NUMERIC_AWARE, requiredValue(operation))) {
+                    throw new InvalidOrderException("JSON Patch test failed at " + path);
+                }
+                return document;
+            default:
+                throw new InvalidOrderException("Unsupported JSON Patch operation: " + op);
+        }
+    }
+
+    private static JsonNode add(JsonNode document, JsonPointer path, JsonNode value) {
+        if (path.matches()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object) {
+            object.set(token, value);
+        } else if (parent instanceof ArrayNode array) {
+            if ("-".equals(token)) {
+                array.add(value);
+            } else {
+                array.insert(index(token, array.size()), value);
+            }
+        } else {
+            throw new InvalidOrderException("JSON Patch path not found: " + path);
+        }
+        return document;
+    }
+
+    private static void remove(JsonNode document, JsonPointer path) {
+        if (path.matches()) {
+            throw new InvalidOrderException("JSON Patch cannot remove the whole document");
+        }
+        JsonNode parent = get(document, path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object && object.has(token)) {
+            object.remove(token);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(index(token, array.size() - 1));
+        } else {
+            throw new InvalidOrderException("JSON Patch path not found: " + path);
+        }
+    }
+
+    private static JsonNode get(JsonNode document, JsonPointer path) {
+        JsonNode node = document.at(path);
+        if (node.isMissingNode()) {
+            throw new InvalidOrderException("JSON Patch path not found: " + path);
+        }
+        return node;
+    }
+
+    private static int index(String token, int max) {
+        try {
+            int index = Integer.parseInt(token);
+            if (index >= 0 && index <= max) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // обработаем ниже как некорректный индекс
+        }
+        throw new InvalidOrderException("Invalid JSON Patch array index: " + token);
+    }
+
+    private static JsonPointer pointer(String path) {
+        try {
+            return JsonPointer.compile(path);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException("Invalid JSON Patch path: " + path);
+        }
+    }
+
+    private static String requiredText(JsonNode operation, String field) {
+        JsonNode value = operation.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new InvalidOrderException("JSON Patch operation requires '" + field + "'");
+        }
+        return value.asText();
+    }
+
+    private static JsonNode requiredValue(JsonNode operation) {
+        if (!operation.has("value")) {
+            throw new InvalidOrderException("JSON Patch operation requires 'value'");
+        }
+        return operation.get("value");
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ordermanagement.presentation.dto;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Schema(description = "Current values of one meter (one name and tag combination)")
+public class MeterSnapshotDTO {
+    @Schema(description = "Meter name", example = "http.server.requests")
+    private String name;
+
+    @Schema(description = "Meter type", example = "TIMER")
+    private String type;
+
+    @Schema(description = "Base unit of the values", example = "seconds")
+    private String baseUnit;
+
+    @Schema(description = "Meter tags")
+    private Map<String, String> tags = new LinkedHashMap<>();
+
+    @Schema(description = "Values by statistic (count, total, max, value, ...)")
+    private Map<String, Double> measurements = new LinkedHashMap<>();
+
+    @Schema(description = "Client-side percentiles of timers and distribution summaries, by percentile")
+    private Map<String, Double> percentiles = new LinkedHashMap<>();
+
+    public static MeterSnapshotDTO fromMeter(Meter meter) {
+        MeterSnapshotDTO dto = new MeterSnapshotDTO();
+        Meter.Id id = meter.getId();
+        dto.setName(id.getName());
+        dto.setType(id.getType().name());
+        dto.setBaseUnit(id.getBaseUnit());
+        for (Tag tag : id.getTagsAsIterable()) {
+            dto.getTags().put(tag.getKey(), tag.getValue());
+        }
+        for (Measurement measurement : meter.measure()) {
+            dto.getMeasurements().put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+        }
+        if (meter instanceof Timer timer) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                dto.getPercentiles().put(String.valueOf(percentile.percentile()), percentile.value(timer.baseTimeUnit()));
+            }
+        } else if (meter instanceof DistributionSummary summary) {
+            for (ValueAtPercentile percentile : summary.takeSnapshot().percentileValues()) {
+                dto.getPercentiles().put(String.valueOf(percentile.percentile()), percentile.value());
+            }
+        }
+        return dto;
+    }
+}
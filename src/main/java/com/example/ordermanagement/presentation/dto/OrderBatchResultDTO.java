@@ -0,0 +1,33 @@
+package com.example.ordermanagement.presentation.dto;
+
+import com.example.ordermanagement.application.service.OrderBatchResult;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Result of creating one order from a batch")
+public class OrderBatchResultDTO {
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    @Schema(description = "Position of the order in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Item status", example = "CREATED")
+    private String status;
+
+    @Schema(description = "ID of the created order")
+    private Long orderId;
+
+    @Schema(description = "Reason the order was rejected")
+    private String error;
+
+    public static OrderBatchResultDTO fromResult(OrderBatchResult result) {
+        OrderBatchResultDTO dto = new OrderBatchResultDTO();
+        dto.setIndex(result.index());
+        dto.setStatus(result.isCreated() ? CREATED : REJECTED);
+        dto.setOrderId(result.orderId());
+        dto.setError(result.error());
+        return dto;
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.ordermanagement.presentation.dto;
 
 import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
 import com.example.ordermanagement.domain.model.Product;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -36,11 +38,16 @@ public class OrderDTO {
     @Schema(description = "Total price of the order", example = "99.99", required = true)
     private BigDecimal totalPrice;
 
+    @Valid
     @NotNull(message = "Products cannot be null")
     @Size(min = 1, message = "Order must contain at least one product")
     @Schema(description = "List of products in the order", required = true)
     private List<ProductDTO> products;
 
+    @Schema(description = "Order version; the same value is returned in the ETag header for If-Match")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     // Convert DTO to Entity
     public static Order toEntity(OrderDTO dto) {
         if (dto == null) {
@@ -76,6 +83,7 @@ public class OrderDTO {
         dto.setCustomerName(entity.getCustomerName());
         dto.setStatus(entity.getStatus().name());
         dto.setTotalPrice(entity.getTotalPrice());
+        dto.setVersion(entity.getVersion());
 
         if (entity.getProducts() != null) {
             List<ProductDTO> productDTOs = entity.getProducts().stream()
@@ -86,6 +94,25 @@ public class OrderDTO {
 
         return dto;
     }
+
+    // Convert read snapshot to DTO
+    public static OrderDTO fromSnapshot(OrderSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(snapshot.orderId());
+        dto.setCustomerName(snapshot.customerName());
+        dto.setStatus(snapshot.status().name());
+        dto.setTotalPrice(snapshot.totalPrice());
+        dto.setVersion(snapshot.version());
+        dto.setProducts(snapshot.products().stream()
+                .map(ProductDTO::fromSnapshot)
+                .collect(Collectors.toList()));
+
+        return dto;
+    }
 }
 
 
@@ -0,0 +1,49 @@
+package com.example.ordermanagement.presentation.dto;
+
+import com.example.ordermanagement.domain.model.OrderStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Schema(description = "Order totals for one status, user and period")
+public class OrderStatsDTO {
+    @Schema(description = "Order status", example = "CONFIRMED")
+    private String status;
+
+    @Schema(description = "Owner user ID")
+    private Long userId;
+
+    @Schema(description = "Start of the period (UTC)")
+    private Instant periodStart;
+
+    @Schema(description = "Number of orders", example = "12")
+    private long count;
+
+    @Schema(description = "Sum of order totals", example = "1250.00")
+    private BigDecimal sum;
+
+    @Schema(description = "Average order total", example = "104.17")
+    private BigDecimal avg;
+
+    @Schema(description = "Smallest order total", example = "10.00")
+    private BigDecimal min;
+
+    @Schema(description = "Largest order total", example = "400.00")
+    private BigDecimal max;
+
+    public static OrderStatsDTO fromStats(OrderStats stats) {
+        OrderStatsDTO dto = new OrderStatsDTO();
+        dto.setStatus(stats.status() != null ? stats.status().name() : null);
+        dto.setUserId(stats.userId());
+        dto.setPeriodStart(stats.periodStart());
+        dto.setCount(stats.count());
+        dto.setSum(stats.sum());
+        dto.setAvg(stats.avg());
+        dto.setMin(stats.min());
+        dto.setMax(stats.max());
+        return dto;
+    }
+}
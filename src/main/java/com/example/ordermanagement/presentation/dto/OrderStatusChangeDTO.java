@@ -0,0 +1,36 @@
+package com.example.ordermanagement.presentation.dto;
+
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Schema(description = "Order status change delivered by the order status stream")
+public class OrderStatusChangeDTO {
+    @Schema(description = "Event ID; send it back in Last-Event-ID to resume the stream")
+    private Long eventId;
+
+    @Schema(description = "Order ID")
+    private Long orderId;
+
+    @Schema(description = "Previous order status", example = "PENDING")
+    private String oldStatus;
+
+    @Schema(description = "New order status", example = "CONFIRMED")
+    private String newStatus;
+
+    @Schema(description = "Time the change was committed")
+    private Instant changedAt;
+
+    public static OrderStatusChangeDTO fromEvent(OrderOutboxEvent event) {
+        OrderStatusChangeDTO dto = new OrderStatusChangeDTO();
+        dto.setEventId(event.getId());
+        dto.setOrderId(event.getOrderId());
+        dto.setOldStatus(event.getOldStatus() != null ? event.getOldStatus().name() : null);
+        dto.setNewStatus(event.getNewStatus() != null ? event.getNewStatus().name() : null);
+        dto.setChangedAt(event.getCreatedAt());
+        return dto;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.ordermanagement.presentation.dto;
 
+import com.example.ordermanagement.domain.model.OrderSnapshot;
 import com.example.ordermanagement.domain.model.Product;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,8 +13,7 @@ import java.math.BigDecimal;
 @Data
 @Schema(description = "Product Data Transfer Object")
 public class ProductDTO {
-    @Schema(hidden = true)
-    @JsonIgnore
+    @Schema(description = "Product line ID; send it back on update to keep the existing line")
     private Long productId;
 
     @NotNull(message = "Product name cannot be null")
@@ -36,6 +35,7 @@ public class ProductDTO {
         }
 
         Product product = new Product();
+        product.setProductId(dto.getProductId());
         product.setName(dto.getName());
         product.setPrice(dto.getPrice());
         product.setQuantity(dto.getQuantity());
@@ -56,6 +56,16 @@ public class ProductDTO {
 
         return dto;
     }
+
+    public static ProductDTO fromSnapshot(OrderSnapshot.ProductSnapshot snapshot) {
+        ProductDTO dto = new ProductDTO();
+        dto.setProductId(snapshot.productId());
+        dto.setName(snapshot.name());
+        dto.setPrice(snapshot.price());
+        dto.setQuantity(snapshot.quantity());
+
+        return dto;
+    }
 }
 
 
@@ -1,8 +1,11 @@
 package com.example.ordermanagement.presentation.exception;
 
+import com.example.ordermanagement.domain.exception.IdempotencyKeyReusedException;
 import com.example.ordermanagement.domain.exception.OrderNotFoundException;
 import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
 import com.example.ordermanagement.domain.exception.TotalPriceMismatchException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -36,6 +39,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    // Заказ изменен параллельно или If-Match не совпадает с текущей версией
+    @ExceptionHandler({OrderVersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleOrderVersionConflictException(RuntimeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", ex instanceof OrderVersionConflictException
+                ? ex.getMessage() : "Order was modified concurrently");
+        return new ResponseEntity<>(body, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Idempotency-Key уже использован с другими данными заказа
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
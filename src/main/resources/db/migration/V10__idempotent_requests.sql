@@ -0,0 +1,11 @@
+-- Ответы на POST /orders с заголовком Idempotency-Key (IdempotentOrderService).
+-- request_key - user_id и ключ клиента; строки старше orders.idempotency.ttl удаляются очисткой.
+CREATE TABLE IF NOT EXISTS idempotent_requests (
+                        request_key VARCHAR(300) PRIMARY KEY,
+                        request_hash VARCHAR(64) NOT NULL,
+                        order_id BIGINT NOT NULL,
+                        response CLOB NOT NULL,
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotent_requests_created_at ON idempotent_requests(created_at);
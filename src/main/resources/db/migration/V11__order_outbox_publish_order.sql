@@ -0,0 +1,4 @@
+-- Поток изменений статусов (GET /orders/stream) дочитывает события пользователя в порядке публикации
+-- (user_id, published_at, id) вместо порядка id: id выдаются пачками и не совпадают с порядком коммитов
+DROP INDEX IF EXISTS idx_order_outbox_user;
+CREATE INDEX IF NOT EXISTS idx_order_outbox_user_published ON order_outbox(user_id, published_at, id);
@@ -0,0 +1,8 @@
+-- Идентификаторы заказов и продуктов выдаются из последовательностей блоками по 50 (pooled),
+-- чтобы Hibernate мог отправлять INSERT JDBC-батчами. Pooled-оптимизатор считает значение
+-- последовательности верхней границей блока, поэтому стартуем на 50 выше текущего максимума.
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE orders_seq RESTART WITH (SELECT COALESCE(MAX(order_id), 0) + 51 FROM orders);
+
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE products_seq RESTART WITH (SELECT COALESCE(MAX(product_id), 0) + 51 FROM products);
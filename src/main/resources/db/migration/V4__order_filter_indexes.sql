@@ -0,0 +1,6 @@
+-- Составные индексы под фильтры по статусу и диапазону цен (OrderSpecifications).
+-- Условие deleted = false добавляется ко всем запросам через @Where. В глобальном индексе deleted
+-- стоит последним: индекс с ведущим deleted выбирается и для запросов без фильтров, и тогда
+-- вместо обхода по первичному ключу (ORDER BY order_id) база сортирует всю таблицу.
+CREATE INDEX IF NOT EXISTS idx_orders_status_price_deleted ON orders(status, total_price, deleted);
+CREATE INDEX IF NOT EXISTS idx_orders_user_deleted_status ON orders(user_id, deleted, status);
@@ -0,0 +1,3 @@
+-- Версия заказа для оптимистической блокировки (@Version в Order, ETag/If-Match в API).
+-- Существующие заказы начинают с версии 0.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
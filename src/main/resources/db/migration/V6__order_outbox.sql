@@ -0,0 +1,14 @@
+-- Transactional outbox для событий изменения статуса заказа (OrderOutboxEvent).
+-- Запись добавляется в транзакции обновления заказа; published_at заполняется после обработки события.
+CREATE SEQUENCE IF NOT EXISTS order_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+                        id BIGINT PRIMARY KEY,
+                        order_id BIGINT NOT NULL,
+                        old_status VARCHAR(50),
+                        new_status VARCHAR(50),
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                        published_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_unpublished ON order_outbox(published_at, id);
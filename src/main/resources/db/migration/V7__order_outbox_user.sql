@@ -0,0 +1,5 @@
+-- Владелец заказа в outbox: поток изменений статусов (GET /orders/stream) фильтрует
+-- и возобновляет события пользователя по (user_id, id)
+ALTER TABLE order_outbox ADD COLUMN IF NOT EXISTS user_id BIGINT;
+UPDATE order_outbox o SET user_id = (SELECT user_id FROM orders WHERE orders.order_id = o.order_id) WHERE user_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_order_outbox_user ON order_outbox(user_id, id);
@@ -0,0 +1,4 @@
+-- Время создания заказа для отчетов GET /orders/stats (группировка по периоду).
+-- У существующих заказов время создания неизвестно, им проставляется время миграции.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_orders_created_at ON orders(created_at);
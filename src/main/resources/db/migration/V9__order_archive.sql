@@ -0,0 +1,32 @@
+-- Время мягкого удаления заказа: по нему удаленные заказы переносятся в архив (OrderArchiver).
+-- Заказам, удаленным до миграции, проставляется время миграции.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITH TIME ZONE;
+UPDATE orders SET deleted_at = CURRENT_TIMESTAMP WHERE deleted = true AND deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_orders_deleted_at ON orders(deleted_at);
+
+-- Индекс по одному deleted почти не селективен (почти все строки - false), а составные индексы
+-- из V4 уже содержат deleted
+DROP INDEX IF EXISTS idx_orders_deleted;
+
+-- Архив удаленных заказов и их позиций; строки только добавляются
+CREATE TABLE IF NOT EXISTS orders_archive (
+                        order_id BIGINT PRIMARY KEY,
+                        user_id BIGINT NOT NULL,
+                        customer_name VARCHAR(255),
+                        status VARCHAR(50),
+                        total_price DECIMAL(10, 2),
+                        version BIGINT,
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                        deleted_at TIMESTAMP WITH TIME ZONE,
+                        archived_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user ON orders_archive(user_id);
+
+CREATE TABLE IF NOT EXISTS products_archive (
+                        product_id BIGINT PRIMARY KEY,
+                        order_id BIGINT NOT NULL,
+                        name VARCHAR(255),
+                        price DECIMAL(10, 2),
+                        quantity INT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_products_archive_order ON products_archive(order_id);
@@ -1,6 +1,19 @@
+DROP TABLE IF EXISTS idempotent_requests;
+DROP TABLE IF EXISTS order_outbox;
+DROP TABLE IF EXISTS products_archive;
+DROP TABLE IF EXISTS orders_archive;
 DROP TABLE IF EXISTS products;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS users;
+DROP TABLE IF EXISTS logs;
+DROP SEQUENCE IF EXISTS orders_seq;
+DROP SEQUENCE IF EXISTS products_seq;
+DROP SEQUENCE IF EXISTS order_outbox_seq;
+
+-- Последовательности для pooled-генерации идентификаторов (см. V3__order_id_sequences.sql)
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE order_outbox_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE users (
                        id INT AUTO_INCREMENT PRIMARY KEY,
@@ -10,17 +23,20 @@ CREATE TABLE users (
 );
 
 CREATE TABLE orders (
-                        order_id INT AUTO_INCREMENT PRIMARY KEY,
+                        order_id INT PRIMARY KEY,
                         user_id INT NOT NULL,
                         customer_name VARCHAR(255) NOT NULL,
                         status VARCHAR(50) NOT NULL,
                         total_price DECIMAL(10, 2) NOT NULL,
                         deleted BOOLEAN DEFAULT FALSE,
+                        version BIGINT DEFAULT 0 NOT NULL,
+                        created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                        deleted_at TIMESTAMP WITH TIME ZONE,
                         FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
 CREATE TABLE products (
-                          product_id INT AUTO_INCREMENT PRIMARY KEY,
+                          product_id INT PRIMARY KEY,
                           order_id INT,
                           name VARCHAR(255) NOT NULL,
                           price DECIMAL(10, 2) NOT NULL,
@@ -28,5 +44,66 @@ CREATE TABLE products (
                           FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE CASCADE
 );
 
-CREATE INDEX IF NOT EXISTS idx_orders_deleted ON orders(deleted);
-CREATE INDEX IF NOT EXISTS idx_orders_user ON orders(user_id);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_orders_user ON orders(user_id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_price_deleted ON orders(status, total_price, deleted);
+CREATE INDEX IF NOT EXISTS idx_orders_user_deleted_status ON orders(user_id, deleted, status);
+CREATE INDEX IF NOT EXISTS idx_orders_created_at ON orders(created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_deleted_at ON orders(deleted_at);
+
+-- Архив удаленных заказов и их позиций (см. V9__order_archive.sql)
+CREATE TABLE orders_archive (
+                        order_id BIGINT PRIMARY KEY,
+                        user_id BIGINT NOT NULL,
+                        customer_name VARCHAR(255),
+                        status VARCHAR(50),
+                        total_price DECIMAL(10, 2),
+                        version BIGINT,
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                        deleted_at TIMESTAMP WITH TIME ZONE,
+                        archived_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE products_archive (
+                        product_id BIGINT PRIMARY KEY,
+                        order_id BIGINT NOT NULL,
+                        name VARCHAR(255),
+                        price DECIMAL(10, 2),
+                        quantity INT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user ON orders_archive(user_id);
+CREATE INDEX IF NOT EXISTS idx_products_archive_order ON products_archive(order_id);
+
+-- Transactional outbox событий изменения статуса заказа (см. V6__order_outbox.sql)
+CREATE TABLE order_outbox (
+                        id BIGINT PRIMARY KEY,
+                        order_id BIGINT NOT NULL,
+                        user_id BIGINT,
+                        old_status VARCHAR(50),
+                        new_status VARCHAR(50),
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                        published_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_unpublished ON order_outbox(published_at, id);
+CREATE INDEX IF NOT EXISTS idx_order_outbox_user_published ON order_outbox(user_id, published_at, id);
+
+-- Ответы на POST /orders с Idempotency-Key (см. V10__idempotent_requests.sql)
+CREATE TABLE idempotent_requests (
+                        request_key VARCHAR(300) PRIMARY KEY,
+                        request_hash VARCHAR(64) NOT NULL,
+                        order_id BIGINT NOT NULL,
+                        response CLOB NOT NULL,
+                        created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotent_requests_created_at ON idempotent_requests(created_at);
+
+-- Журнал приложения; заполняется асинхронным appender AsyncBatchJdbc из log4j2.xml
+CREATE TABLE IF NOT EXISTS logs (
+                      event_date TIMESTAMP NOT NULL,
+                      level VARCHAR(10) NOT NULL,
+                      logger VARCHAR(255),
+                      message CLOB,
+                      exception CLOB
+);
@@ -0,0 +1,37 @@
+package com.example.ordermanagement;
+
+import org.slf4j.LoggerFactory;
+
+// Общие замеры нагрузочных тестов (@LoadTest)
+public final class LoadMeasurements {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private LoadMeasurements() {
+    }
+
+    // Выполняет action warmup раз без замера, затем iterations раз; возвращает выполнений в секунду
+    public static double throughput(int warmup, int iterations, Action action) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return iterations / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    // Перцентиль p (0..1] по отсортированным задержкам в наносекундах, в миллисекундах
+    public static double percentileMillis(long[] sortedNanos, double p) {
+        return sortedNanos[(int) Math.ceil(p * sortedNanos.length) - 1] / 1e6;
+    }
+
+    // Результат замера в лог теста (format - как у String.format)
+    public static void report(Class<?> test, String format, Object... args) {
+        LoggerFactory.getLogger(test).info(String.format(format, args));
+    }
+}
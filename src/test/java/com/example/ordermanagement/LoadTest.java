@@ -0,0 +1,19 @@
+package com.example.ordermanagement;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Нагрузочный тест на поднятом приложении (замеры, которые нельзя вынести в JMH-бенчмарк *Benchmark):
+// в обычной сборке пропускается, результаты пишет в лог через LoadMeasurements.report.
+// Запуск: mvn test -Dtest=<класс> -DloadTests=true
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("load")
+@EnabledIfSystemProperty(named = "loadTests", matches = "true")
+public @interface LoadTest {
+}
@@ -0,0 +1,143 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderEventPipelineTest {
+
+    private static final String USERNAME = "events-user";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderEventDispatcher dispatcher;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private OrderEventHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("password");
+            user.setRole(User.Role.USER);
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    void committedStatusChange_IsDeliveredAfterCommitAndMarkedPublished() throws InterruptedException {
+        Long orderId = createOrder();
+
+        orderService.updateOrder(USERNAME, orderId, withStatus(Order.OrderStatus.CONFIRMED));
+
+        verify(handler, timeout(5000)).handleOrderStatusChangedEvents(argThat(events ->
+                contains(events, orderId, Order.OrderStatus.CONFIRMED)));
+        OrderOutboxEvent outboxEvent = awaitPublished(orderId);
+        assertNotNull(outboxEvent.getPublishedAt());
+    }
+
+    @Test
+    void rolledBackStatusChange_IsNeitherStoredNorDelivered() {
+        Long orderId = createOrder();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.updateOrder(USERNAME, orderId, withStatus(Order.OrderStatus.CANCELLED));
+            status.setRollbackOnly();
+        });
+
+        verify(handler, after(500).never()).handleOrderStatusChangedEvents(argThat(events ->
+                contains(events, orderId, Order.OrderStatus.CANCELLED)));
+        assertTrue(outboxRepository.findAll().stream().noneMatch(event -> event.getOrderId().equals(orderId)));
+    }
+
+    @Test
+    void unpublishedOutboxEvent_IsRelayed() throws InterruptedException {
+        // Событие, записанное до падения приложения и так и не доставленное
+        OrderOutboxEvent stale = OrderOutboxEvent.of(
+                new OrderStatusChangedEvent(-1L, null, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED),
+                Instant.now().minus(Duration.ofMinutes(5)));
+        outboxRepository.save(stale);
+
+        dispatcher.relayUnpublished();
+
+        verify(handler, timeout(5000)).handleOrderStatusChangedEvents(argThat(events ->
+                contains(events, -1L, Order.OrderStatus.CANCELLED)));
+        assertNotNull(awaitPublished(-1L).getPublishedAt());
+    }
+
+    private Long createOrder() {
+        Order order = new Order();
+        order.setCustomerName("Events");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("10.00"));
+        order.getProducts().add(new Product("Product", new BigDecimal("10.00"), 1));
+        return orderService.createOrder(USERNAME, order).getOrderId();
+    }
+
+    private static Order withStatus(Order.OrderStatus status) {
+        Order order = new Order();
+        order.setCustomerName("Events");
+        order.setStatus(status);
+        order.setTotalPrice(new BigDecimal("10.00"));
+        order.setProducts(List.of(new Product("Product", new BigDecimal("10.00"), 1)));
+        return order;
+    }
+
+    private static boolean contains(List<OrderStatusChangedEvent> events, Long orderId, Order.OrderStatus newStatus) {
+        return events != null && events.stream()
+                .anyMatch(event -> event.getOrderId().equals(orderId) && event.getNewStatus() == newStatus);
+    }
+
+    // Отметка о публикации ставится после вызова обработчика, поэтому ждем ее отдельно
+    private OrderOutboxEvent awaitPublished(Long orderId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (true) {
+            OrderOutboxEvent event = outboxRepository.findAll().stream()
+                    .filter(e -> e.getOrderId().equals(orderId))
+                    .findFirst().orElseThrow();
+            if (event.getPublishedAt() != null || System.nanoTime() > deadline) {
+                return event;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ordermanagement.application.event;
+
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// База общая с другими тестами, поэтому проверяются только события, созданные в тесте
+@SpringBootTest(properties = {
+        "orders.events.retention=1h",
+        "orders.events.purge-batch-size=2"
+})
+@ActiveProfiles("test")
+class OrderOutboxCleanerTest {
+
+    @Autowired
+    private OrderOutboxCleaner cleaner;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Test
+    void publishedEventsOlderThanRetention_AreRemovedInBatches() {
+        Instant old = Instant.now().minus(Duration.ofHours(2));
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(save(-100L - i, old, old).getId());
+        }
+        Long recent = save(-110L, old, Instant.now()).getId();
+        // Неопубликованное событие еще должен доставить relay
+        Long unpublished = save(-111L, old, null).getId();
+
+        assertTrue(cleaner.purgePublished() >= expired.size());
+
+        expired.forEach(id -> assertFalse(outboxRepository.existsById(id)));
+        assertTrue(outboxRepository.existsById(recent));
+        assertTrue(outboxRepository.existsById(unpublished));
+    }
+
+    private OrderOutboxEvent save(Long orderId, Instant createdAt, Instant publishedAt) {
+        OrderOutboxEvent event = OrderOutboxEvent.of(
+                new OrderStatusChangedEvent(orderId, null, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED),
+                createdAt);
+        event.setPublishedAt(publishedAt);
+        return outboxRepository.save(event);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.exception.IdempotencyKeyReusedException;
+import com.example.ordermanagement.domain.model.IdempotentRequest;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.IdempotentRequestRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Повторы создания заказа с одним Idempotency-Key. База общая с другими тестами,
+// поэтому заказы считаются только у пользователя теста и ключи в каждом тесте новые.
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotentOrderServiceTest {
+
+    private static final String USERNAME = "idempotency-user";
+    private static final String REQUEST = "{\"customerName\":\"Idempotent\"}";
+
+    @Autowired
+    private IdempotentOrderService idempotentOrderService;
+
+    @Autowired
+    private IdempotentRequestRepository requestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername(USERNAME).orElseGet(() -> {
+            User created = new User();
+            created.setUsername(USERNAME);
+            created.setPassword("password");
+            created.setRole(User.Role.USER);
+            return userRepository.save(created);
+        });
+    }
+
+    @Test
+    void retry_ReturnsStoredResponseWithoutCreatingOrder() {
+        String key = UUID.randomUUID().toString();
+        long ordersBefore = countOrders();
+        double replayedBefore = replayedCount();
+
+        IdempotentOrderService.IdempotentResponse first = create(key, REQUEST);
+        IdempotentOrderService.IdempotentResponse retry = create(key, REQUEST);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals(ordersBefore + 1, countOrders());
+        assertEquals(replayedBefore + 1, replayedCount());
+    }
+
+    @Test
+    void sameKeyWithDifferentRequest_IsRejected() {
+        String key = UUID.randomUUID().toString();
+        create(key, REQUEST);
+        long ordersBefore = countOrders();
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> create(key, "{\"customerName\":\"Other\"}"));
+        assertEquals(ordersBefore, countOrders());
+    }
+
+    @Test
+    void concurrentRetries_CreateOneOrder() throws Exception {
+        String key = UUID.randomUUID().toString();
+        long ordersBefore = countOrders();
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<IdempotentOrderService.IdempotentResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return create(key, REQUEST);
+                }));
+            }
+            start.countDown();
+            List<String> bodies = new ArrayList<>();
+            int created = 0;
+            for (Future<IdempotentOrderService.IdempotentResponse> response : responses) {
+                bodies.add(response.get().body());
+                created += response.get().replayed() ? 0 : 1;
+            }
+            assertEquals(1, created);
+            assertEquals(1, bodies.stream().distinct().count());
+            assertEquals(ordersBefore + 1, countOrders());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sweep_RemovesOnlyExpiredKeys() {
+        String fresh = UUID.randomUUID().toString();
+        create(fresh, REQUEST);
+        String expiredKey = user.getId() + ":" + UUID.randomUUID();
+        requestRepository.save(IdempotentRequest.of(expiredKey, "hash", 1L, "{}",
+                Instant.now().minus(Duration.ofDays(2))));
+
+        assertTrue(idempotentOrderService.sweepExpired() >= 1);
+
+        assertFalse(requestRepository.existsById(expiredKey));
+        assertTrue(requestRepository.existsById(user.getId() + ":" + fresh));
+    }
+
+    private IdempotentOrderService.IdempotentResponse create(String key, String request) {
+        return idempotentOrderService.createOrder(USERNAME, key, request, newOrder(),
+                order -> String.valueOf(order.getOrderId()));
+    }
+
+    private long countOrders() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE user_id = ?", Long.class, user.getId());
+    }
+
+    private double replayedCount() {
+        return meterRegistry.get(IdempotentOrderService.REPLAYED_COUNTER).counter().count();
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setCustomerName("Idempotent");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("10.00"));
+        order.getProducts().add(new Product("Product", new BigDecimal("10.00"), 1));
+        return order;
+    }
+}
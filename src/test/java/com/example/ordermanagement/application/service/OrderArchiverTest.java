@@ -0,0 +1,106 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Проверяет массовое мягкое удаление и перенос удаленных заказов с позициями в архив пачками.
+// База общая с другими тестами, поэтому проверяются только заказы, созданные в тесте.
+@SpringBootTest(properties = {
+        "orders.archive.retention=0s",
+        "orders.archive.batch-size=2",
+        "orders.archive.pause=0ms"
+})
+@ActiveProfiles("test")
+class OrderArchiverTest {
+
+    private static final String USERNAME = "archive-user";
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("password");
+            user.setRole(User.Role.USER);
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    void deletedOrders_AreMovedToArchiveInBatches() {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderService.createOrder(USERNAME, newOrder()).getOrderId());
+        }
+        List<Long> deletedIds = orderIds.subList(0, 3);
+        double archivedBefore = meterRegistry.get(OrderArchiver.ARCHIVED_ORDERS_COUNTER).counter().count();
+
+        assertEquals(deletedIds, orderService.deleteOrders(deletedIds));
+        assertEquals(List.of(), orderService.deleteOrders(deletedIds));
+        assertTrue(orderRepository.findAllById(deletedIds).isEmpty());
+
+        long archived = orderArchiver.archiveDeleted();
+
+        assertTrue(archived >= deletedIds.size());
+        for (Long orderId : deletedIds) {
+            assertEquals(0, count("SELECT COUNT(*) FROM orders WHERE order_id = ?", orderId));
+            assertEquals(0, count("SELECT COUNT(*) FROM products WHERE order_id = ?", orderId));
+            assertEquals(1, count("SELECT COUNT(*) FROM orders_archive WHERE order_id = ? AND deleted_at IS NOT NULL",
+                    orderId));
+            assertEquals(2, count("SELECT COUNT(*) FROM products_archive WHERE order_id = ?", orderId));
+        }
+        assertEquals(2, orderRepository.findAllById(orderIds).size());
+        assertEquals(archivedBefore + archived, meterRegistry.get(OrderArchiver.ARCHIVED_ORDERS_COUNTER).counter().count());
+        assertEquals(0, meterRegistry.get(OrderArchiver.BACKLOG_GAUGE).gauge().value());
+        assertEquals(0, orderArchiver.archiveDeleted());
+    }
+
+    private long count(String sql, Long orderId) {
+        return jdbcTemplate.queryForObject(sql, Long.class, orderId);
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setCustomerName("Archive");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("20.00"));
+        order.getProducts().add(new Product("First", new BigDecimal("10.00"), 1));
+        order.getProducts().add(new Product("Second", new BigDecimal("10.00"), 1));
+        return order;
+    }
+}
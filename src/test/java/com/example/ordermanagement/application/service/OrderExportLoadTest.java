@@ -0,0 +1,111 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.LoadMeasurements;
+import com.example.ordermanagement.LoadTest;
+import com.example.ordermanagement.presentation.dto.OrderDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Нагрузочный тест потоковой выгрузки заказов: проверяет, что удерживаемая во время выгрузки
+// память (замер после GC на контрольных точках) не зависит от количества заказов.
+// LAZY_QUERY_EXECUTION не дает H2 материализовать весь результат запроса на стороне базы.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:loadtest;LAZY_QUERY_EXECUTION=TRUE")
+@ActiveProfiles("test")
+@LoadTest
+class OrderExportLoadTest {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int SEED_BATCH = 5_000;
+    private static final int CHECKPOINTS = 4;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void streamOrders_HeapStaysFlatFrom10kTo1mOrders() {
+        jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES ('load-admin', 'x', 'ADMIN')");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'load-admin'", Long.class);
+
+        Map<Integer, Long> peakGrowth = new LinkedHashMap<>();
+        int seeded = 0;
+        for (int size : SIZES) {
+            seed(userId, seeded, size);
+            seeded = size;
+            peakGrowth.put(size, measurePeakHeapGrowth(size));
+        }
+
+        peakGrowth.forEach((size, growth) ->
+                LoadMeasurements.report(getClass(), "orders=%,d retainedHeapGrowth=%,d KiB", size, growth / 1024));
+
+        long smallest = peakGrowth.get(SIZES[0]);
+        long largest = peakGrowth.get(SIZES[SIZES.length - 1]);
+        // При 100-кратном росте выгрузки удерживаемая память может расти не больше чем на 16 МБ
+        assertTrue(largest - smallest <= 16L * 1024 * 1024,
+                "Heap growth is not flat: " + peakGrowth);
+    }
+
+    private long measurePeakHeapGrowth(int expected) {
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        long[] peak = {0};
+        long[] written = {0};
+        OutputStream sink = OutputStream.nullOutputStream();
+
+        int sampleEvery = expected / CHECKPOINTS;
+
+        long count = orderService.streamOrders("load-admin", null, null, null, order -> {
+            try {
+                sink.write(objectMapper.writeValueAsBytes(OrderDTO.fromEntity(order)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++written[0] % sampleEvery == 0) {
+                System.gc();
+                peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+            }
+        });
+
+        assertEquals(expected, count);
+        return peak[0];
+    }
+
+    private void seed(Long userId, int from, int to) {
+        for (int start = from; start < to; start += SEED_BATCH) {
+            int end = Math.min(start + SEED_BATCH, to);
+            List<Object[]> orders = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                orders.add(new Object[]{userId, "Customer " + i});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO orders (order_id, user_id, customer_name, status, total_price, deleted, version, created_at) " +
+                    "VALUES (NEXT VALUE FOR orders_seq, ?, ?, 'PENDING', 10.00, false, 0, CURRENT_TIMESTAMP)", orders);
+        }
+        Long lastWithProducts = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(order_id), 0) FROM products", Long.class);
+        jdbcTemplate.update("INSERT INTO products (product_id, order_id, name, price, quantity) " +
+                "SELECT NEXT VALUE FOR products_seq, order_id, 'Product', 10.00, 1 FROM orders WHERE order_id > ?", lastWithProducts);
+    }
+}
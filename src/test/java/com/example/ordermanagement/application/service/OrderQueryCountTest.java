@@ -0,0 +1,233 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.presentation.dto.OrderDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Проверяет, что чтение заказов выполняет фиксированное число SQL-запросов
+// независимо от количества заказов (нет N+1 при загрузке продуктов и пользователя),
+// а пакетное создание заказов отправляет INSERT батчами и обновление заказа
+// затрагивает только измененные позиции
+// Повтор доставки событий outbox по расписанию не должен попадать в подсчет запросов
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "orders.events.relay-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class OrderQueryCountTest {
+
+    private static final int PRODUCTS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void getOrdersPage_UsesFixedQueryCount(int orderCount) {
+        String username = seed("page-user-" + orderCount, orderCount);
+
+        statistics.clear();
+        List<OrderDTO> orders = orderService.getOrders(username, null, null, null, null, OrderService.MAX_PAGE_SIZE)
+                .stream().map(OrderDTO::fromEntity).toList();
+
+        assertEquals(orderCount, orders.size());
+        assertEquals(orderCount * PRODUCTS_PER_ORDER, orders.stream().mapToInt(o -> o.getProducts().size()).sum());
+        // пользователь + страница заказов + продукты страницы
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void getOrders_UsesFixedQueryCount(int orderCount) {
+        String username = seed("list-user-" + orderCount, orderCount);
+
+        statistics.clear();
+        List<OrderDTO> orders = orderService.getOrders(username, null, null, null)
+                .stream().map(OrderDTO::fromEntity).toList();
+
+        assertEquals(orderCount, orders.size());
+        // пользователь + заказы вместе с продуктами
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void getOrder_UsesFixedQueryCount(int orderCount) {
+        String username = seed("single-user-" + orderCount, orderCount);
+        Long orderId = orderRepository.findByUser(userRepository.findByUsername(username).orElseThrow())
+                .get(0).getOrderId();
+
+        statistics.clear();
+        OrderDTO order = OrderDTO.fromEntity(orderService.getOrder(username, orderId));
+
+        assertEquals(PRODUCTS_PER_ORDER, order.getProducts().size());
+        // пользователь + заказ вместе с владельцем и продуктами
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void getOrderViews_ReadsPageWithoutEntities(int orderCount) {
+        String username = seed("view-user-" + orderCount, orderCount);
+
+        statistics.clear();
+        List<OrderSnapshot> orders = orderService.getOrderViews(username, null, null, null, null,
+                OrderService.MAX_PAGE_SIZE);
+
+        assertEquals(orderCount, orders.size());
+        assertEquals(orderCount * PRODUCTS_PER_ORDER, orders.stream().mapToInt(o -> o.products().size()).sum());
+        assertEquals("Product 0", orders.get(0).products().get(0).name());
+        // пользователь + страница заказов + продукты страницы; сущности заказов и продуктов не создаются
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertNoOrderEntitiesLoaded();
+    }
+
+    @Test
+    void getOrderView_ReadsOrderWithoutEntities() {
+        String username = seed("view-single-user", 2);
+        Long orderId = orderRepository.findByUser(userRepository.findByUsername(username).orElseThrow())
+                .get(1).getOrderId();
+
+        statistics.clear();
+        OrderSnapshot order = orderService.getOrderView(username, orderId);
+
+        assertEquals(orderId, order.orderId());
+        assertEquals(PRODUCTS_PER_ORDER, order.products().size());
+        assertEquals(0L, order.version());
+        // пользователь + заказ вместе с продуктами
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertNoOrderEntitiesLoaded();
+    }
+
+    @Test
+    void deleteOrders_UsesOneUpdateWithoutLoadingOrders() {
+        String username = seed("bulk-delete-user", 20);
+        List<Long> orderIds = orderRepository.findByUser(userRepository.findByUsername(username).orElseThrow())
+                .stream().map(Order::getOrderId).toList();
+
+        statistics.clear();
+        List<Long> deleted = orderService.deleteOrders(orderIds);
+
+        assertEquals(orderIds.size(), deleted.size());
+        // статусы и суммы для счетчиков + один UPDATE
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertNoOrderEntitiesLoaded();
+        assertTrue(orderRepository.findAllById(orderIds).isEmpty());
+    }
+
+    @Test
+    void createOrders_GroupsInsertsIntoJdbcBatches() {
+        String username = seed("batch-user", 0);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            orders.add(newOrder("Batch " + i));
+        }
+
+        statistics.clear();
+        List<OrderBatchResult> results = orderService.createOrders(username, orders);
+
+        assertTrue(results.stream().allMatch(OrderBatchResult::isCreated));
+        assertEquals(200, orderRepository.findByUser(userRepository.findByUsername(username).orElseThrow()).size());
+        // 200 заказов и 600 продуктов: INSERT батчами по 50 и выборка блоков ID из последовательностей,
+        // а не 800 отдельных INSERT
+        assertTrue(statistics.getPrepareStatementCount() <= 40,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void updateOrder_PrependedLine_InsertsOnlyNewProduct() {
+        String username = seed("update-user", 1);
+        Order existing = orderRepository.findByUser(userRepository.findByUsername(username).orElseThrow()).get(0);
+        Long orderId = existing.getOrderId();
+
+        Order updated = newOrder(existing.getCustomerName());
+        List<Product> products = new ArrayList<>();
+        products.add(new Product("New product", new BigDecimal("10.00"), 1));
+        for (Product product : orderService.getOrder(username, orderId).getProducts()) {
+            Product copy = new Product(product.getName(), product.getPrice(), product.getQuantity());
+            copy.setProductId(product.getProductId());
+            products.add(copy);
+        }
+        updated.setProducts(products);
+        updated.setTotalPrice(new BigDecimal("40.00"));
+
+        statistics.clear();
+        orderService.updateOrder(username, orderId, updated);
+
+        assertEquals(PRODUCTS_PER_ORDER + 1, orderService.getOrder(username, orderId).getProducts().size());
+        // Новая позиция в начале списка дает один INSERT; существующие позиции не переписываются,
+        // обновляется только строка заказа (итоговая сумма)
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+    }
+
+    private void assertNoOrderEntitiesLoaded() {
+        assertEquals(0, statistics.getEntityStatistics(Order.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+    }
+
+    private String seed(String username, int orderCount) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(User.Role.USER);
+        userRepository.save(user);
+
+        for (int i = 0; i < orderCount; i++) {
+            Order order = newOrder("Customer " + i);
+            order.setUser(user);
+            order.getProducts().forEach(product -> product.setOrder(order));
+            orderRepository.save(order);
+        }
+        return username;
+    }
+
+    private Order newOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("30.00"));
+        for (int j = 0; j < PRODUCTS_PER_ORDER; j++) {
+            order.getProducts().add(new Product("Product " + j, new BigDecimal("10.00"), 1));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.OrderManagementApplication;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.presentation.dto.OrderDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JMH: сквозные вызовы OrderService (создание, чтение одного заказа, страница заказов)
+// на контексте Spring с профилем test и in-memory H2, без SQL-логов. Веб-контекст поднимается
+// на случайном порту только потому, что его требует SecurityConfig; запросы идут напрямую в сервис.
+// Пары *Dto сравнивают чтение через сущности и чтение в снимки вместе с преобразованием в OrderDTO;
+// load*Dto читают один заказ мимо кэша. Аллокации - с профилировщиком: -Djmh.args="-prof gc"
+// Запуск: mvn -Pjmh verify -Djmh.includes=OrderServiceH2Benchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceH2Benchmark {
+
+    private static final String USERNAME = "benchmark-admin";
+    private static final int SEEDED_ORDERS = 1_000;
+    private static final int PAGE_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Long existingOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderManagementApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.example=INFO",
+                        "logging.level.org.hibernate.SQL=INFO",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        User admin = new User();
+        admin.setUsername(USERNAME);
+        admin.setPassword("password");
+        admin.setRole(User.Role.ADMIN);
+        context.getBean(UserRepository.class).save(admin);
+
+        for (int i = 0; i < SEEDED_ORDERS; i++) {
+            existingOrderId = orderService.createOrder(USERNAME, newOrder()).getOrderId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(USERNAME, newOrder());
+    }
+
+    @Benchmark
+    public Order getOrder() {
+        return orderService.getOrder(USERNAME, existingOrderId);
+    }
+
+    @Benchmark
+    public List<Order> getOrdersPage() {
+        return orderService.getOrders(USERNAME, Order.OrderStatus.PENDING, null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<OrderDTO> getOrdersPageEntityDto() {
+        return orderService.getOrders(USERNAME, Order.OrderStatus.PENDING, null, null, null, PAGE_SIZE)
+                .stream().map(OrderDTO::fromEntity).toList();
+    }
+
+    @Benchmark
+    public List<OrderDTO> getOrdersPageSnapshotDto() {
+        return orderService.getOrderViews(USERNAME, Order.OrderStatus.PENDING, null, null, null, PAGE_SIZE)
+                .stream().map(OrderDTO::fromSnapshot).toList();
+    }
+
+    @Benchmark
+    public OrderDTO loadOrderEntityDto() {
+        return readOnlyTransaction.execute(status ->
+                OrderDTO.fromEntity(orderRepository.findWithProductsByOrderId(existingOrderId).orElseThrow()));
+    }
+
+    @Benchmark
+    public OrderDTO loadOrderSnapshotDto() {
+        return OrderDTO.fromSnapshot(orderRepository.findSnapshotById(existingOrderId).orElseThrow());
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setCustomerName("Benchmark Customer");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("30.00"));
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product("Product " + i, new BigDecimal("10.00"), 1);
+            product.setOrder(order);
+            order.getProducts().add(product);
+        }
+        return order;
+    }
+}
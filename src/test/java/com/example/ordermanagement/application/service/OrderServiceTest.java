@@ -3,24 +3,40 @@ package com.example.ordermanagement.application.service;
 import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
 import com.example.ordermanagement.domain.exception.InvalidOrderException;
 import com.example.ordermanagement.domain.exception.OrderNotFoundException;
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
 import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
 import com.example.ordermanagement.domain.model.Product;
 import com.example.ordermanagement.domain.model.User;
 import com.example.ordermanagement.domain.repository.OrderRepository;
 import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,12 +54,28 @@ class OrderServiceTest {
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private UserIdentityCache userIdentityCache = new UserIdentityCache(100, Duration.ofMinutes(5));
+
+    @Spy
+    private OrderCache orderCache = new OrderCache(new ConcurrentMapCacheManager("orders"));
+
+    @Mock
+    private OrderStatusCounters statusCounters;
+
+    @Spy
+    private OrderShards orderShards = OrderShards.unsharded();
+
     @InjectMocks
     private OrderService orderService;
 
     private User user;
     private User admin;
     private Order order;
+    private long lastOrderId = 100;
 
     @BeforeEach
     void setUp() {
@@ -66,7 +98,12 @@ class OrderServiceTest {
 
         Product product = new Product("Test Product", new BigDecimal("100.00"), 1);
         product.setOrder(order);
-        order.setProducts(List.of(product));
+        order.setProducts(new ArrayList<>(List.of(product)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
@@ -88,9 +125,103 @@ class OrderServiceTest {
         assertThrows(InvalidOrderException.class, () -> orderService.createOrder("nonexistent", order));
     }
 
+    @Test
+    void createOrder_FractionalCentPrices_FallsBackToRoundedBigDecimalCheck() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        Order fractional = newOrder(new BigDecimal("1.00"));
+        fractional.setProducts(List.of(new Product("Third", new BigDecimal("0.333"), 3)));
+
+        assertDoesNotThrow(() -> orderService.createOrder("user", fractional));
+    }
+
+    @Test
+    void totalPriceMatches_ComparesExactCents() {
+        Order exact = newOrder(new BigDecimal("150.00"));
+        exact.setProducts(List.of(new Product("A", new BigDecimal("12.50"), 4), new Product("B", new BigDecimal("100"), 1)));
+        assertTrue(OrderService.totalPriceMatches(exact));
+
+        exact.setTotalPrice(new BigDecimal("150.01"));
+        assertFalse(OrderService.totalPriceMatches(exact));
+    }
+
+    @Test
+    void totalPriceMatches_LongOverflow_FallsBackToBigDecimal() {
+        BigDecimal hugePrice = new BigDecimal("90000000000000000.00");
+        Order huge = newOrder(hugePrice.multiply(BigDecimal.valueOf(3)));
+        huge.setProducts(List.of(new Product("Huge", hugePrice, 3)));
+
+        assertTrue(OrderService.totalPriceMatches(huge));
+    }
+
+    @Test
+    void createOrders_MixedBatch_SavesValidAndRejectsInvalid() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(orderRepository.save(any(Order.class))).thenAnswer(this::assignOrderId);
+        Order mismatch = newOrder(new BigDecimal("5.00"));
+        Order noProducts = newOrder(new BigDecimal("100.00"));
+        noProducts.setProducts(new ArrayList<>());
+        List<Order> batch = List.of(newOrder(new BigDecimal("100.00")), mismatch, noProducts, newOrder(new BigDecimal("100.00")));
+
+        List<OrderBatchResult> results = orderService.createOrders("user", batch);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertEquals("Total price does not match the sum of product prices", results.get(1).error());
+        assertEquals("Order must contain at least one product", results.get(2).error());
+        assertTrue(results.get(3).isCreated());
+        verify(orderRepository, times(2)).save(any(Order.class));
+        assertSame(batch.get(0), batch.get(0).getProducts().get(0).getOrder());
+    }
+
+    @Test
+    void createOrders_FlushesAndClearsAfterEachJdbcBatch() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        when(orderRepository.save(any(Order.class))).thenAnswer(this::assignOrderId);
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            batch.add(newOrder(new BigDecimal("100.00")));
+        }
+
+        orderService.createOrders("user", batch);
+
+        verify(orderRepository, times(120)).save(any(Order.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    // Промах не кэшируется: заказ, созданный пачкой после чтения его id, сразу читается
+    @Test
+    void getOrder_AfterMissAndBatchCreate_ReturnsCreatedOrder() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(orderRepository.findWithProductsByOrderId(101L)).thenReturn(Optional.empty());
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder("user", 101L));
+
+        when(orderRepository.save(any(Order.class))).thenAnswer(this::assignOrderId);
+        Order created = newOrder(new BigDecimal("100.00"));
+        assertEquals(101L, orderService.createOrders("user", List.of(created)).get(0).orderId());
+        when(orderRepository.findWithProductsByOrderId(101L)).thenReturn(Optional.of(created));
+
+        assertEquals("Batch Customer", orderService.getOrder("user", 101L).getCustomerName());
+        verify(orderCache).evict(101L);
+    }
+
+    @Test
+    void createOrders_EmptyOrOversizedBatch_ThrowsException() {
+        assertThrows(InvalidOrderException.class, () -> orderService.createOrders("user", List.of()));
+        List<Order> oversized = new ArrayList<>();
+        for (int i = 0; i <= OrderService.MAX_BATCH_SIZE; i++) {
+            oversized.add(order);
+        }
+        assertThrows(InvalidOrderException.class, () -> orderService.createOrders("user", oversized));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void updateOrder_ValidOrderAndUser_Success() {
-        when(orderRepository.findById(anyLong())).thenReturn(Optional.of(order));
+        when(orderRepository.findWithProductsByOrderId(anyLong())).thenReturn(Optional.of(order));
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
         when(orderRepository.save(any(Order.class))).thenReturn(order);
 
@@ -109,11 +240,13 @@ class OrderServiceTest {
         assertEquals(1, result.getProducts().size());
         assertEquals("Updated Product", result.getProducts().get(0).getName());
         verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
+        verify(statusCounters).orderUpdated(Order.OrderStatus.PENDING, new BigDecimal("100.00"),
+                Order.OrderStatus.CONFIRMED, new BigDecimal("150.00"));
     }
 
     @Test
     void updateOrder_OrderNotFound_ThrowsException() {
-        when(orderRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(orderRepository.findWithProductsByOrderId(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(OrderNotFoundException.class, () -> orderService.updateOrder("user", 999L, new Order()));
     }
@@ -125,7 +258,7 @@ class OrderServiceTest {
         otherUser.setUsername("otherUser");
         otherUser.setRole(User.Role.USER);
 
-        when(orderRepository.findById(anyLong())).thenReturn(Optional.of(order));
+        when(orderRepository.findWithProductsByOrderId(anyLong())).thenReturn(Optional.of(order));
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(otherUser));
 
         assertThrows(AccessDeniedException.class, () -> orderService.updateOrder("otherUser", 1L, new Order()));
@@ -134,7 +267,7 @@ class OrderServiceTest {
     @Test
     void getOrders_AsUser_ReturnsUserOrders() {
         when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
-        when(orderRepository.findByUserAndStatusAndPriceRange(eq(user), any(), any(), any()))
+        when(orderRepository.findByUserAndStatusAndPriceRange(eq(1L), any(), any(), any()))
                 .thenReturn(List.of(order));
 
         List<Order> result = orderService.getOrders("user", null, null, null);
@@ -156,10 +289,182 @@ class OrderServiceTest {
         assertEquals(2, result.size());
     }
 
+    @Test
+    void getOrdersPage_AsUser_UsesKeysetQueryWithLimit() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findPageByUserAndStatusAndPriceRange(eq(1L), any(), any(), any(), eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(order));
+
+        List<Order> result = orderService.getOrders("user", null, null, null, 10L, 50);
+
+        assertEquals(1, result.size());
+        verify(orderRepository).findPageByUserAndStatusAndPriceRange(eq(1L), any(), any(), any(), eq(10L),
+                argThat(pageable -> pageable.getPageSize() == 50 && pageable.getOffset() == 0));
+    }
+
+    @Test
+    void getOrdersPage_AsAdmin_UsesGlobalKeysetQuery() {
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        when(orderRepository.findPageByStatusAndPriceRange(any(), any(), any(), isNull(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(order, new Order()));
+
+        List<Order> result = orderService.getOrders("admin", null, null, null, null, 2);
+
+        assertEquals(2, result.size());
+    }
+
+    @Test
+    void getOrderViews_AsAdmin_ReadsSnapshotsOfAllUsers() {
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        when(orderRepository.findSnapshotPage(isNull(), any(), any(), any(), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(OrderSnapshot.of(order)));
+
+        List<OrderSnapshot> result = orderService.getOrderViews("admin", null, null, null, 5L, 20);
+
+        assertEquals(1, result.size());
+        verify(orderRepository, never()).findPageByStatusAndPriceRange(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getOrdersPage_LimitOutOfRange_ThrowsException() {
+        assertThrows(InvalidOrderException.class, () -> orderService.getOrders("user", null, null, null, null, 0));
+        assertThrows(InvalidOrderException.class,
+                () -> orderService.getOrders("user", null, null, null, null, OrderService.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void streamOrders_AsAdmin_PassesEachOrderAndDetachesIt() {
+        Order second = new Order();
+        second.setOrderId(2L);
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        when(orderRepository.streamByStatusAndPriceRange(any(), any(), any())).thenReturn(Stream.of(order, second));
+
+        List<Order> received = new ArrayList<>();
+        long count = orderService.streamOrders("admin", null, null, null, received::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(order, second), received);
+        verify(entityManager).detach(order);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void getOrder_AuthenticatedPrincipal_SkipsUserLookup() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+
+        Order result = orderService.getOrder("user", 1L);
+
+        assertEquals(order.getOrderId(), result.getOrderId());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getOrder_RepeatedCalls_LoadUserOnce() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+
+        orderService.getOrder("user", 1L);
+        orderService.getOrder("user", 1L);
+
+        verify(userRepository, times(1)).findByUsername("user");
+    }
+
+    @Test
+    void getOrder_AfterUserInvalidated_ReloadsUser() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+
+        orderService.getOrder("user", 1L);
+        userIdentityCache.invalidate(user.getId());
+        orderService.getOrder("user", 1L);
+
+        verify(userRepository, times(2)).findByUsername("user");
+    }
+
+    @Test
+    void getOrder_RepeatedCalls_ServedFromCache() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+
+        Order first = orderService.getOrder("user", 1L);
+        first.setCustomerName("Changed by caller");
+        Order second = orderService.getOrder("user", 1L);
+
+        assertEquals("Test Customer", second.getCustomerName());
+        assertEquals(1, second.getProducts().size());
+        verify(orderRepository, times(1)).findWithProductsByOrderId(1L);
+    }
+
+    @Test
+    void updateOrder_StaleExpectedVersion_ThrowsConflict() {
+        order.setVersion(7L);
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        assertThrows(OrderVersionConflictException.class,
+                () -> orderService.updateOrder("user", 1L, new Order(), 6L));
+        assertEquals("Test Customer", order.getCustomerName());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void updateOrder_OnlyProductsChanged_ForcesVersionIncrement() {
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order updatedOrder = new Order();
+        updatedOrder.setCustomerName("Test Customer");
+        updatedOrder.setStatus(Order.OrderStatus.PENDING);
+        updatedOrder.setTotalPrice(new BigDecimal("100"));
+        updatedOrder.setProducts(List.of(new Product("Test Product", new BigDecimal("50.00"), 2)));
+
+        orderService.updateOrder("user", 1L, updatedOrder);
+
+        verify(entityManager).lock(order, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    }
+
+    @Test
+    void updateOrder_RefreshesCachedOrder() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        orderService.getOrder("user", 1L);
+
+        Order updatedOrder = new Order();
+        updatedOrder.setCustomerName("Updated Customer Name");
+        updatedOrder.setStatus(Order.OrderStatus.CONFIRMED);
+        updatedOrder.setTotalPrice(new BigDecimal("100.00"));
+        updatedOrder.setProducts(List.of(new Product("Test Product", new BigDecimal("100.00"), 1)));
+        orderService.updateOrder("user", 1L, updatedOrder);
+
+        Order cached = orderService.getOrder("user", 1L);
+
+        assertEquals("Updated Customer Name", cached.getCustomerName());
+        assertEquals(Order.OrderStatus.CONFIRMED, cached.getStatus());
+        verify(orderRepository, times(2)).findWithProductsByOrderId(1L);
+    }
+
+    @Test
+    void deleteOrder_EvictsCachedOrder() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order)).thenReturn(Optional.empty());
+        when(orderRepository.findTotalsByOrderIdIn(Set.of(1L))).thenReturn(List.of(total(1L, order)));
+        when(orderRepository.softDeleteByOrderIdIn(eq(List.of(1L)), any())).thenReturn(1);
+        orderService.getOrder("user", 1L);
+
+        orderService.deleteOrder(1L);
+
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder("user", 1L));
+    }
+
     @Test
     void getOrder_AsUser_OwnOrder_Success() {
         when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
 
         Order result = orderService.getOrder("user", 1L);
 
@@ -179,7 +484,7 @@ class OrderServiceTest {
         otherOrder.setUser(otherUser);
 
         when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(otherOrder));
+        when(orderRepository.findWithProductsByOrderId(2L)).thenReturn(Optional.of(otherOrder));
 
         assertThrows(AccessDeniedException.class, () -> orderService.getOrder("user", 2L));
     }
@@ -187,7 +492,7 @@ class OrderServiceTest {
     @Test
     void getOrder_AsAdmin_AnyOrder_Success() {
         when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
 
         Order result = orderService.getOrder("admin", 1L);
 
@@ -195,21 +500,106 @@ class OrderServiceTest {
         assertEquals(order.getOrderId(), result.getOrderId());
     }
 
+    @Test
+    void getOrderView_OtherUserOrder_ThrowsException() {
+        OrderSnapshot otherOrder = new OrderSnapshot(2L, 3L, "Other", Order.OrderStatus.PENDING,
+                new BigDecimal("10.00"), 0L, List.of());
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findSnapshotById(2L)).thenReturn(Optional.of(otherOrder));
+
+        assertThrows(AccessDeniedException.class, () -> orderService.getOrderView("user", 2L));
+    }
+
+    @Test
+    void getOrderView_SharesCacheWithGetOrder() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(orderRepository.findWithProductsByOrderId(1L)).thenReturn(Optional.of(order));
+        orderService.getOrder("user", 1L);
+
+        OrderSnapshot result = orderService.getOrderView("user", 1L);
+
+        assertEquals("Test Customer", result.customerName());
+        assertEquals(1, result.products().size());
+        verify(orderRepository, never()).findSnapshotById(any());
+    }
+
     @Test
     void deleteOrder_ExistingOrder_Success() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findTotalsByOrderIdIn(Set.of(1L))).thenReturn(List.of(total(1L, order)));
+        when(orderRepository.softDeleteByOrderIdIn(eq(List.of(1L)), any())).thenReturn(1);
 
         assertDoesNotThrow(() -> orderService.deleteOrder(1L));
-        verify(orderRepository).delete(order);
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).delete(any(Order.class));
+        verify(statusCounters).orderDeleted(Order.OrderStatus.PENDING, new BigDecimal("100.00"));
     }
 
     @Test
     void deleteOrder_NonExistingOrder_ThrowsException() {
-        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+        when(orderRepository.findTotalsByOrderIdIn(Set.of(999L))).thenReturn(List.of());
 
         assertThrows(OrderNotFoundException.class, () -> orderService.deleteOrder(999L));
+        verify(orderRepository, never()).softDeleteByOrderIdIn(any(), any());
+    }
+
+    @Test
+    void deleteOrders_SkipsMissingIdsAndUpdatesCounters() {
+        Order confirmed = newOrder(new BigDecimal("30.00"));
+        confirmed.setStatus(Order.OrderStatus.CONFIRMED);
+        when(orderRepository.findTotalsByOrderIdIn(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(total(3L, confirmed), total(1L, order)));
+        when(orderRepository.softDeleteByOrderIdIn(eq(List.of(1L, 3L)), any())).thenReturn(2);
+
+        List<Long> deleted = orderService.deleteOrders(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(1L, 3L), deleted);
+        verify(statusCounters).orderDeleted(Order.OrderStatus.PENDING, new BigDecimal("100.00"));
+        verify(statusCounters).orderDeleted(Order.OrderStatus.CONFIRMED, new BigDecimal("30.00"));
     }
-}
 
+    @Test
+    void deleteOrders_TooManyIds_ThrowsException() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 0; id <= OrderService.MAX_PAGE_SIZE; id++) {
+            ids.add(id);
+        }
+
+        assertThrows(InvalidOrderException.class, () -> orderService.deleteOrders(ids));
+        assertThrows(InvalidOrderException.class, () -> orderService.deleteOrders(List.of()));
+    }
 
+    private static OrderRepository.OrderTotal total(Long orderId, Order order) {
+        return new OrderRepository.OrderTotal() {
+            @Override
+            public Long getOrderId() {
+                return orderId;
+            }
+
+            @Override
+            public Order.OrderStatus getStatus() {
+                return order.getStatus();
+            }
+
+            @Override
+            public BigDecimal getTotalPrice() {
+                return order.getTotalPrice();
+            }
+        };
+    }
 
+    // Как последовательность при persist: сохраненный заказ получает id
+    private Order assignOrderId(InvocationOnMock invocation) {
+        Order saved = invocation.getArgument(0);
+        saved.setOrderId(++lastOrderId);
+        return saved;
+    }
+
+    private Order newOrder(BigDecimal totalPrice) {
+        Order newOrder = new Order();
+        newOrder.setCustomerName("Batch Customer");
+        newOrder.setStatus(Order.OrderStatus.PENDING);
+        newOrder.setTotalPrice(totalPrice);
+        newOrder.getProducts().add(new Product("Batch Product", new BigDecimal("100.00"), 1));
+        return newOrder;
+    }
+}
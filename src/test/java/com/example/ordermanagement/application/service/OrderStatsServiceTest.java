@@ -0,0 +1,155 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.exception.InvalidOrderException;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderStats;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Проверяет агрегаты /orders/stats: группировку по статусу, пользователю и периоду,
+// подсчет одним запросом без загрузки заказов и кэширование статистики администратора.
+// Заказы создаются в отдельных годах, чтобы не пересекаться с данными других тестов.
+// Повтор доставки событий outbox по расписанию не должен попадать в подсчет запросов
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "orders.events.relay-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class OrderStatsServiceTest {
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void userStats_AreGroupedByStatusAndDayInOneQuery() {
+        createUser("stats-user");
+        createUser("stats-other");
+        createOrder("stats-user", "2001-03-01T10:15:00Z", Order.OrderStatus.CONFIRMED, "10.00");
+        createOrder("stats-user", "2001-03-01T18:00:00Z", Order.OrderStatus.CONFIRMED, "25.00");
+        createOrder("stats-user", "2001-03-02T09:00:00Z", Order.OrderStatus.PENDING, "5.00");
+        createOrder("stats-other", "2001-03-01T12:00:00Z", Order.OrderStatus.CONFIRMED, "100.00");
+
+        statistics.clear();
+        List<OrderStats> stats = orderStatsService.getStats("stats-user", OrderStats.Period.DAY,
+                Instant.parse("2001-01-01T00:00:00Z"), Instant.parse("2002-01-01T00:00:00Z"));
+
+        assertEquals(2, stats.size());
+        OrderStats confirmed = stats.get(0);
+        assertEquals(Order.OrderStatus.CONFIRMED, confirmed.status());
+        assertEquals(Instant.parse("2001-03-01T00:00:00Z"), confirmed.periodStart());
+        assertEquals(2, confirmed.count());
+        assertEquals(new BigDecimal("35.00"), confirmed.sum());
+        assertEquals(new BigDecimal("17.50"), confirmed.avg());
+        assertEquals(new BigDecimal("10.00"), confirmed.min());
+        assertEquals(new BigDecimal("25.00"), confirmed.max());
+        OrderStats pending = stats.get(1);
+        assertEquals(Order.OrderStatus.PENDING, pending.status());
+        assertEquals(Instant.parse("2001-03-02T00:00:00Z"), pending.periodStart());
+        assertEquals(1, pending.count());
+        // один GROUP BY-запрос (пользователь уже в кэше после создания заказов); заказы не загружаются
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void hourPeriod_SplitsOrdersOfTheSameDay() {
+        createUser("stats-hour-user");
+        createOrder("stats-hour-user", "2002-05-10T08:05:00Z", Order.OrderStatus.PENDING, "10.00");
+        createOrder("stats-hour-user", "2002-05-10T08:55:00Z", Order.OrderStatus.PENDING, "20.00");
+        createOrder("stats-hour-user", "2002-05-10T09:10:00Z", Order.OrderStatus.PENDING, "30.00");
+
+        List<OrderStats> stats = orderStatsService.getStats("stats-hour-user", OrderStats.Period.HOUR, null, null);
+
+        assertEquals(2, stats.size());
+        assertEquals(Instant.parse("2002-05-10T08:00:00Z"), stats.get(0).periodStart());
+        assertEquals(2, stats.get(0).count());
+        assertEquals(Instant.parse("2002-05-10T09:00:00Z"), stats.get(1).periodStart());
+        assertEquals(new BigDecimal("30.00"), stats.get(1).sum());
+    }
+
+    @Test
+    void adminStats_CoverAllUsersAndAreCached() {
+        createUser("stats-admin", User.Role.ADMIN);
+        createUser("stats-admin-a");
+        createUser("stats-admin-b");
+        createOrder("stats-admin-a", "2003-07-03T10:00:00Z", Order.OrderStatus.CANCELLED, "10.00");
+        createOrder("stats-admin-b", "2003-07-20T10:00:00Z", Order.OrderStatus.CANCELLED, "20.00");
+        Instant from = Instant.parse("2003-01-01T00:00:00Z");
+        Instant to = Instant.parse("2004-01-01T00:00:00Z");
+
+        List<OrderStats> stats = orderStatsService.getStats("stats-admin", OrderStats.Period.MONTH, from, to);
+
+        assertEquals(2, stats.size());
+        assertEquals(Instant.parse("2003-07-01T00:00:00Z"), stats.get(0).periodStart());
+        assertEquals(Instant.parse("2003-07-01T00:00:00Z"), stats.get(1).periodStart());
+        assertEquals(new BigDecimal("30.00"), stats.get(0).sum().add(stats.get(1).sum()));
+
+        statistics.clear();
+        assertEquals(stats, orderStatsService.getStats("stats-admin", OrderStats.Period.MONTH, from, to));
+        // повторный запрос в пределах TTL отдается из кэша
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void emptyTimeRange_IsRejected() {
+        Instant at = Instant.parse("2001-01-01T00:00:00Z");
+        assertThrows(InvalidOrderException.class,
+                () -> orderStatsService.getStats("stats-admin", OrderStats.Period.DAY, at, at));
+    }
+
+    private void createUser(String username) {
+        createUser(username, User.Role.USER);
+    }
+
+    private void createUser(String username, User.Role role) {
+        if (userRepository.findByUsername(username).isEmpty()) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("password");
+            user.setRole(role);
+            userRepository.save(user);
+        }
+    }
+
+    private void createOrder(String username, String createdAt, Order.OrderStatus status, String total) {
+        Order order = new Order();
+        order.setCustomerName("Stats");
+        order.setStatus(status);
+        order.setTotalPrice(new BigDecimal(total));
+        order.setCreatedAt(Instant.parse(createdAt));
+        order.getProducts().add(new Product("Product", new BigDecimal(total), 1));
+        orderService.createOrder(username, order);
+    }
+}
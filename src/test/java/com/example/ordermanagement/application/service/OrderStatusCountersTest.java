@@ -0,0 +1,117 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Проверяет, что счетчики по статусам меняются только после коммита и совпадают с базой после сверки
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderStatusCountersTest {
+
+    private static final String USERNAME = "counters-user";
+
+    @Autowired
+    private OrderStatusCounters counters;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("password");
+            user.setRole(User.Role.USER);
+            userRepository.save(user);
+        }
+        counters.reconcile();
+    }
+
+    @Test
+    void createUpdateDelete_MoveOrderBetweenStatuses() {
+        long pending = counters.getCount(Order.OrderStatus.PENDING);
+        long confirmed = counters.getCount(Order.OrderStatus.CONFIRMED);
+        BigDecimal confirmedRevenue = counters.getRevenue(Order.OrderStatus.CONFIRMED);
+
+        Long orderId = orderService.createOrder(USERNAME, newOrder(Order.OrderStatus.PENDING, "10.00")).getOrderId();
+        assertEquals(pending + 1, counters.getCount(Order.OrderStatus.PENDING));
+
+        orderService.updateOrder(USERNAME, orderId, newOrder(Order.OrderStatus.CONFIRMED, "25.50"));
+        assertEquals(pending, counters.getCount(Order.OrderStatus.PENDING));
+        assertEquals(confirmed + 1, counters.getCount(Order.OrderStatus.CONFIRMED));
+        assertEquals(confirmedRevenue.add(new BigDecimal("25.50")), counters.getRevenue(Order.OrderStatus.CONFIRMED));
+        assertEquals(confirmed + 1, meterRegistry.get(OrderStatusCounters.COUNT_GAUGE)
+                .tag("status", "CONFIRMED").gauge().value());
+
+        orderService.deleteOrder(orderId);
+        assertEquals(confirmed, counters.getCount(Order.OrderStatus.CONFIRMED));
+        assertEquals(confirmedRevenue, counters.getRevenue(Order.OrderStatus.CONFIRMED));
+    }
+
+    @Test
+    void rolledBackCreate_IsNotCounted() {
+        long cancelled = counters.getCount(Order.OrderStatus.CANCELLED);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.createOrder(USERNAME, newOrder(Order.OrderStatus.CANCELLED, "10.00"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(cancelled, counters.getCount(Order.OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void reconcile_FixesChangesMadeBypassingTheService() {
+        Long orderId = orderService.createOrder(USERNAME, newOrder(Order.OrderStatus.PENDING, "40.00")).getOrderId();
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE order_id = ?", orderId);
+
+        counters.reconcile();
+
+        for (OrderRepository.StatusTotals totals : orderRepository.countAndSumByStatus()) {
+            assertEquals(totals.getOrderCount(), counters.getCount(totals.getStatus()));
+            assertEquals(0, totals.getRevenue().compareTo(counters.getRevenue(totals.getStatus())));
+        }
+    }
+
+    private static Order newOrder(Order.OrderStatus status, String total) {
+        Order order = new Order();
+        order.setCustomerName("Counters");
+        order.setStatus(status);
+        order.setTotalPrice(new BigDecimal(total));
+        order.setProducts(new ArrayList<>(List.of(new Product("Product", new BigDecimal(total), 1))));
+        return order;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+// JMH: сверка итога заказа с суммой позиций - прежний расчет через поток BigDecimal
+// против точного пути в копейках (OrderService.totalPriceMatches), и полная validateOrder,
+// на заказах из 1, 10 и 1000 позиций.
+// Запуск: mvn -Pjmh verify -Djmh.includes=OrderTotalBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int lines;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        order.setCustomerName("Benchmark Customer");
+        order.setStatus(Order.OrderStatus.PENDING);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal price = BigDecimal.valueOf(1999 + i, 2);
+            int quantity = 1 + i % 5;
+            order.getProducts().add(new Product("Product " + i, price, quantity));
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+        order.setTotalPrice(total);
+    }
+
+    @Benchmark
+    public boolean bigDecimalStream() {
+        BigDecimal calculatedTotal = order.getProducts().stream()
+                .map(product -> product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2, RoundingMode.HALF_UP);
+        return order.getTotalPrice().setScale(2, RoundingMode.HALF_UP).equals(calculatedTotal);
+    }
+
+    @Benchmark
+    public boolean longCents() {
+        return OrderService.totalPriceMatches(order);
+    }
+
+    @Benchmark
+    public Order validateOrder() {
+        OrderService.validateOrder(order);
+        return order;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ordermanagement.application.service;
+
+import com.example.ordermanagement.LoadMeasurements;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Несколько потоков одновременно увеличивают количество в одной позиции одного заказа
+// через RetryingOrderUpdater. Проверяет, что ни одно изменение не потеряно, и пишет в лог
+// пропускную способность и число повторов при конфликте версий.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "logging.level.com.example=INFO",
+        // при 8 конкурирующих потоках поток может проиграть гонку много раз подряд
+        "orders.update.max-attempts=100"
+})
+@ActiveProfiles("test")
+class OrderUpdateContentionTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 10;
+    private static final BigDecimal PRICE = new BigDecimal("10.00");
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RetryingOrderUpdater retryingOrderUpdater;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentUpdates_LoseNothing() throws Exception {
+        String username = "contention-user";
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(User.Role.USER);
+        userRepository.save(user);
+
+        Order order = new Order();
+        order.setCustomerName("Contention");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(PRICE);
+        order.getProducts().add(new Product("Counter", PRICE, 1));
+        Order created = orderService.createOrder(username, order);
+        Long orderId = created.getOrderId();
+        long initialVersion = orderService.getOrder(username, orderId).getVersion();
+        double retriesBefore = meterRegistry.counter(RetryingOrderUpdater.RETRY_COUNTER_NAME).count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    retryingOrderUpdater.update(username, orderId, current -> {
+                        Product line = current.getProducts().get(0);
+                        line.setQuantity(line.getQuantity() + 1);
+                        current.setTotalPrice(PRICE.multiply(BigDecimal.valueOf(line.getQuantity())));
+                    });
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+
+        int updates = THREADS * UPDATES_PER_THREAD;
+        double retries = meterRegistry.counter(RetryingOrderUpdater.RETRY_COUNTER_NAME).count() - retriesBefore;
+        LoadMeasurements.report(getClass(), "threads=%d updates=%d retries=%.0f throughput=%.0f updates/s",
+                THREADS, updates, retries, updates / seconds);
+
+        Order result = orderService.getOrder(username, orderId);
+        assertEquals(1 + updates, result.getProducts().get(0).getQuantity());
+        assertEquals(0, PRICE.multiply(BigDecimal.valueOf(1 + updates)).compareTo(result.getTotalPrice()));
+        assertTrue(result.getVersion() >= initialVersion + updates);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.ordermanagement.domain.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderTest {
+
+    private Order order;
+    private Product first;
+    private Product second;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        first = existing(1L, "First", "10.00", 1);
+        second = existing(2L, "Second", "20.00", 2);
+    }
+
+    @Test
+    void updateProducts_PrependedLine_KeepsExistingInstances() {
+        List<Product> productsBefore = order.getProducts();
+
+        order.updateProducts(List.of(
+                new Product("New", new BigDecimal("5.00"), 1),
+                line(1L, "First", "10.00", 1),
+                line(2L, "Second", "20.00", 2)));
+
+        assertSame(productsBefore, order.getProducts());
+        assertEquals(3, order.getProducts().size());
+        assertNull(order.getProducts().get(0).getProductId());
+        assertSame(order, order.getProducts().get(0).getOrder());
+        assertSame(first, order.getProducts().get(1));
+        assertSame(second, order.getProducts().get(2));
+    }
+
+    @Test
+    void updateProducts_MatchesById_UpdatesInPlace() {
+        order.updateProducts(List.of(line(2L, "Second renamed", "25.00", 3), line(1L, "First", "10.00", 1)));
+
+        assertSame(second, order.getProducts().get(0));
+        assertSame(first, order.getProducts().get(1));
+        assertEquals("Second renamed", second.getName());
+        assertEquals(new BigDecimal("25.00"), second.getPrice());
+        assertEquals(3, second.getQuantity());
+    }
+
+    @Test
+    void updateProducts_WithoutIds_MatchesByName() {
+        order.updateProducts(List.of(
+                new Product("Second", new BigDecimal("20.00"), 5),
+                new Product("First", new BigDecimal("10.00"), 1)));
+
+        assertSame(second, order.getProducts().get(0));
+        assertSame(first, order.getProducts().get(1));
+        assertEquals(5, second.getQuantity());
+    }
+
+    @Test
+    void updateProducts_MissingLines_AreRemoved() {
+        order.updateProducts(List.of(line(2L, "Second", "20.00", 2)));
+
+        assertEquals(1, order.getProducts().size());
+        assertSame(second, order.getProducts().get(0));
+    }
+
+    @Test
+    void updateProducts_UnknownId_IsInsertedAsNewLine() {
+        Product foreign = line(99L, "Other", "1.00", 1);
+
+        order.updateProducts(List.of(line(1L, "First", "10.00", 1), line(2L, "Second", "20.00", 2), foreign));
+
+        assertEquals(3, order.getProducts().size());
+        assertSame(foreign, order.getProducts().get(2));
+        assertNull(foreign.getProductId());
+    }
+
+    @Test
+    void updateProducts_Null_ClearsProducts() {
+        order.updateProducts(null);
+
+        assertTrue(order.getProducts().isEmpty());
+    }
+
+    private Product existing(Long productId, String name, String price, int quantity) {
+        Product product = line(productId, name, price, quantity);
+        product.setOrder(order);
+        order.getProducts().add(product);
+        return product;
+    }
+
+    private static Product line(Long productId, String name, String price, int quantity) {
+        Product product = new Product(name, new BigDecimal(price), quantity);
+        product.setProductId(productId);
+        return product;
+    }
+}
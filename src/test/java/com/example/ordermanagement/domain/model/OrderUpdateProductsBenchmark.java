@@ -0,0 +1,71 @@
+package com.example.ordermanagement.domain.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JMH: Order.updateProducts для PUT с теми же позициями и с новой позицией в начале списка.
+// Заказ и новый список позиций создаются заново перед каждым вызовом, так как метод их изменяет.
+// Запуск: mvn -Pjmh verify -Djmh.includes=OrderUpdateProductsBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderUpdateProductsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private Order order;
+    private List<Product> sameLines;
+    private List<Product> prependedLine;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        order = new Order();
+        sameLines = new ArrayList<>(lines);
+        prependedLine = new ArrayList<>(lines + 1);
+        prependedLine.add(new Product("New product", new BigDecimal("1.00"), 1));
+        for (int i = 0; i < lines; i++) {
+            Product existing = product(i);
+            existing.setOrder(order);
+            order.getProducts().add(existing);
+            sameLines.add(product(i));
+            prependedLine.add(product(i));
+        }
+    }
+
+    @Benchmark
+    public Order sameLines() {
+        order.updateProducts(sameLines);
+        return order;
+    }
+
+    @Benchmark
+    public Order prependLine() {
+        order.updateProducts(prependedLine);
+        return order;
+    }
+
+    private static Product product(int i) {
+        Product product = new Product("Product " + i, BigDecimal.valueOf(1999 + i, 2), 1 + i % 5);
+        product.setProductId((long) i + 1);
+        return product;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ordermanagement.infrastructure.aspect;
+
+import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// JMH: накладные расходы на вызов OrderService.getOrders (1000 заказов в результате)
+// для прежнего аспекта, который форматировал аргументы и результат в строку (stringifying),
+// и для LoggingAspect (tracing).
+// Запуск: mvn -Pjmh verify -Djmh.includes=LoggingAspectBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private static final int RESULT_SIZE = 1000;
+
+    @Param({"stringifying", "tracing"})
+    public String aspect;
+
+    private OrderService service;
+
+    // Поведение прежнего аспекта: сообщения формируются так же, как их форматирует appender
+    @Aspect
+    static class StringifyingAspect {
+        static long sink;
+
+        @Before("execution(* com.example.ordermanagement.application.service.OrderService.*(..))")
+        public void logBefore(JoinPoint joinPoint) {
+            sink += ParameterizedMessage.format("Executing {} with arguments {}",
+                    new Object[]{joinPoint.getSignature().getName(), joinPoint.getArgs()}).length();
+        }
+
+        @AfterReturning(pointcut = "execution(* com.example.ordermanagement.application.service.OrderService.*(..))",
+                returning = "result")
+        public void logAfter(JoinPoint joinPoint, Object result) {
+            sink += ParameterizedMessage.format("{} returned {}",
+                    new Object[]{joinPoint.getSignature().getName(), result}).length();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        User admin = new User();
+        admin.setId(1L);
+        admin.setUsername("admin");
+        admin.setRole(User.Role.ADMIN);
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        when(orderRepository.findByStatusAndPriceRange(any(), any(), any())).thenReturn(orders());
+        Object advice = aspect.equals("tracing")
+                ? new LoggingAspect(new SimpleMeterRegistry(), 0.01)
+                : new StringifyingAspect();
+        service = LoggingAspectTest.proxy(advice, orderRepository, userRepository);
+    }
+
+    @Benchmark
+    public List<Order> getOrders() {
+        return service.getOrders("admin", null, null, null);
+    }
+
+    private static List<Order> orders() {
+        List<Order> orders = new ArrayList<>(RESULT_SIZE);
+        for (long i = 0; i < RESULT_SIZE; i++) {
+            Order order = new Order();
+            order.setOrderId(i);
+            order.setCustomerName("Customer " + i);
+            order.setStatus(Order.OrderStatus.PENDING);
+            order.setTotalPrice(BigDecimal.TEN);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
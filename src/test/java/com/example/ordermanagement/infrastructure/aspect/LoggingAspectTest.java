@@ -0,0 +1,96 @@
+package com.example.ordermanagement.infrastructure.aspect;
+
+import com.example.ordermanagement.application.service.OrderCache;
+import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.application.service.OrderStatusCounters;
+import com.example.ordermanagement.application.service.UserIdentityCache;
+import com.example.ordermanagement.domain.exception.OrderNotFoundException;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.infrastructure.persistence.OrderShards;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoggingAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        User admin = new User();
+        admin.setId(1L);
+        admin.setUsername("admin");
+        admin.setRole(User.Role.ADMIN);
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+
+        orderService = proxy(new LoggingAspect(registry, 1.0), orderRepository, userRepository);
+    }
+
+    @Test
+    void trace_RecordsTimerPerMethod() {
+        when(orderRepository.findByStatusAndPriceRange(any(), any(), any()))
+                .thenReturn(List.of(new Order(), new Order()));
+
+        orderService.getOrders("admin", null, null, null);
+        orderService.getOrders("admin", null, null, null);
+
+        Timer timer = registry.find(LoggingAspect.TIMER_NAME)
+                .tags("method", "getOrders", "exception", "none").timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void trace_RecordsFailureWithExceptionTag() {
+        when(orderRepository.findWithProductsByOrderId(any())).thenReturn(Optional.empty());
+
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder("admin", 42L));
+
+        assertNotNull(registry.find(LoggingAspect.TIMER_NAME)
+                .tags("method", "getOrder", "exception", "OrderNotFoundException").timer());
+    }
+
+    @Test
+    void resultSize_CountsCollectionsWithoutRenderingThem() {
+        assertEquals(0, LoggingAspect.resultSize(null));
+        assertEquals(3, LoggingAspect.resultSize(List.of(1, 2, 3)));
+        assertEquals(0, LoggingAspect.resultSize(Collections.emptyMap()));
+        assertEquals(2, LoggingAspect.resultSize(new int[2]));
+        assertEquals(1, LoggingAspect.resultSize(new Order()));
+    }
+
+    static OrderService proxy(Object aspect, OrderRepository orderRepository, UserRepository userRepository) {
+        OrderService target = new OrderService(orderRepository, userRepository, mock(ApplicationEventPublisher.class),
+                mock(EntityManager.class), new UserIdentityCache(100, Duration.ofMinutes(5)),
+                new OrderCache(new ConcurrentMapCacheManager("orders")),
+                new OrderStatusCounters(orderRepository, OrderShards.unsharded(), new SimpleMeterRegistry()),
+                OrderShards.unsharded());
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ordermanagement.infrastructure.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncBatchJdbcAppenderTest {
+
+    @Test
+    void append_WritesAllEventsInBatches() throws Exception {
+        String url = "jdbc:h2:mem:appender-batches;DB_CLOSE_DELAY=-1";
+        AsyncBatchJdbcAppender appender = createAppender(url, 1000, "DROP");
+        appender.start();
+
+        for (int i = 0; i < 500; i++) {
+            appender.append(event("message " + i, i == 0 ? new IllegalStateException("boom") : null));
+        }
+        assertTrue(appender.stop(5, TimeUnit.SECONDS));
+
+        assertEquals(500, appender.getQueuedCount());
+        assertEquals(500, appender.getWrittenCount());
+        assertEquals(0, appender.getDroppedCount());
+        assertEquals(500, count(url, "SELECT COUNT(*) FROM logs"));
+        assertEquals(1, count(url, "SELECT COUNT(*) FROM logs WHERE exception LIKE '%boom%'"));
+    }
+
+    @Test
+    void append_QueueFull_DropsAndCountsEvents() throws Exception {
+        String url = "jdbc:h2:mem:appender-drop;DB_CLOSE_DELAY=-1";
+        AsyncBatchJdbcAppender appender = createAppender(url, 10, "DROP");
+
+        // Фоновый поток не запущен, поэтому очередь заполняется полностью
+        for (int i = 0; i < 25; i++) {
+            appender.append(event("message " + i, null));
+        }
+
+        assertEquals(10, appender.getQueuedCount());
+        assertEquals(15, appender.getDroppedCount());
+        assertEquals(10, appender.getQueueDepth());
+    }
+
+    @Test
+    void append_BlockPolicy_WaitsForTimeoutBeforeDropping() {
+        AsyncBatchJdbcAppender appender = createAppender("jdbc:h2:mem:appender-block;DB_CLOSE_DELAY=-1", 1, "BLOCK");
+        appender.append(event("first", null));
+
+        long start = System.nanoTime();
+        appender.append(event("second", null));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis >= 50, "BLOCK policy should wait before dropping");
+        assertEquals(1, appender.getDroppedCount());
+    }
+
+    private static AsyncBatchJdbcAppender createAppender(String url, int queueSize, String overflowPolicy) {
+        return AsyncBatchJdbcAppender.createAppender("test", null, url, "sa", "", "logs",
+                queueSize, 64, 50, overflowPolicy, 50);
+    }
+
+    private static LogEvent event(String message, Throwable thrown) {
+        return Log4jLogEvent.newBuilder()
+                .setLoggerName("test")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message))
+                .setThrown(thrown)
+                .setTimeMillis(System.currentTimeMillis())
+                .build();
+    }
+
+    private static long count(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet rs = connection.createStatement().executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
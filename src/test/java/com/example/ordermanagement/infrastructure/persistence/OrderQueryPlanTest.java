@@ -0,0 +1,102 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.repository.OrderRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Регрессионный тест планов запросов: перехватывает SQL, который Hibernate строит для фильтров
+// заказов, и проверяет через H2 EXPLAIN, что используются составные индексы, а в SQL
+// нет предикатов вида (? IS NULL OR ...) для незаданных фильтров
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.example.ordermanagement.infrastructure.persistence.OrderQueryPlanTest$RecordingStatementInspector")
+@ActiveProfiles("test")
+class OrderQueryPlanTest {
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RecordingStatementInspector.statements.clear();
+    }
+
+    @Test
+    void statusAndPriceFilter_UsesStatusPriceIndex() {
+        orderRepository.findByStatusAndPriceRange(Order.OrderStatus.PENDING, BigDecimal.TEN, BigDecimal.valueOf(100));
+        String sql = lastStatement();
+
+        assertFalse(sql.toLowerCase().contains("is null"), sql);
+        String plan = explain(sql, "PENDING", BigDecimal.TEN, BigDecimal.valueOf(100));
+        assertTrue(plan.contains("IDX_ORDERS_STATUS_PRICE_DELETED"), plan);
+    }
+
+    @Test
+    void userAndStatusFilter_UsesUserDeletedStatusIndex() {
+        orderRepository.findByUserAndStatusAndPriceRange(1L, Order.OrderStatus.PENDING, null, null);
+        String sql = lastStatement();
+
+        assertFalse(sql.toLowerCase().contains("is null"), sql);
+        String plan = explain(sql, 1L, "PENDING");
+        assertTrue(plan.contains("IDX_ORDERS_USER_DELETED_STATUS"), plan);
+    }
+
+    @Test
+    void queryWithoutFilters_ScansPrimaryKeyWithoutSorting() {
+        orderRepository.findByStatusAndPriceRange(null, null, null);
+        String sql = lastStatement();
+
+        // выгрузка идет курсором по order_id: составной индекс с ведущим deleted
+        // заставил бы H2 материализовать и отсортировать всю таблицу
+        String plan = explain(sql);
+        assertFalse(plan.contains("IDX_ORDERS_STATUS_PRICE_DELETED"), plan);
+        assertFalse(plan.contains("IDX_ORDERS_USER_DELETED_STATUS"), plan);
+    }
+
+    @Test
+    void pageWithoutFilters_EmitsOnlyPagingParameters() {
+        orderRepository.findPageByStatusAndPriceRange(null, null, null, null, PageRequest.ofSize(10));
+        String sql = lastStatement();
+
+        assertFalse(sql.toLowerCase().contains("is null"), sql);
+        assertFalse(sql.contains("status="), sql);
+        // только параметры LIMIT/OFFSET
+        assertEquals(2, sql.chars().filter(c -> c == '?').count(), sql);
+    }
+
+    private String lastStatement() {
+        List<String> statements = RecordingStatementInspector.statements;
+        return statements.get(statements.size() - 1);
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import com.example.ordermanagement.infrastructure.config.CacheConfig;
+import com.example.ordermanagement.presentation.controller.OrderController;
+import com.example.ordermanagement.presentation.dto.OrderDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Две базы H2 вместо основной базы и реплики. Репликация имитируется копированием основной базы
+// в реплику (SCRIPT/RUNSCRIPT), поэтому до вызова replicate() реплика отстает.
+@SpringBootTest(properties = {
+        "orders.datasource.replica.enabled=true",
+        "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY_URL,
+        "orders.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "orders.datasource.replica.username=sa",
+        "orders.datasource.replica.hikari.maximum-pool-size=2",
+        "orders.datasource.replica.max-lag=1m",
+        "orders.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+        "orders.datasource.replica.lag-check-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final String WRITER = "replica-writer";
+    private static final String READER = "replica-reader";
+    private static final String PATCHER = "replica-patcher";
+    private static final String CLIENT = "replica-client";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        createUser(WRITER, User.Role.USER);
+        createUser(READER, User.Role.ADMIN);
+        createUser(PATCHER, User.Role.ADMIN);
+        createUser(CLIENT, User.Role.USER);
+        replicate();
+        setReplicaLag(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyCalls_ReadFromReplica() throws SQLException {
+        Long orderId = as(WRITER, () -> orderService.createOrder(WRITER, newOrder()).getOrderId());
+
+        assertFalse(visibleTo(READER, orderId));
+
+        replicate();
+        assertTrue(visibleTo(READER, orderId));
+    }
+
+    @Test
+    void ownWrites_AreReadFromPrimaryWithinMaxLag() {
+        Long orderId = as(WRITER, () -> orderService.createOrder(WRITER, newOrder()).getOrderId());
+
+        assertTrue(visibleTo(WRITER, orderId));
+        assertFalse(visibleTo(READER, orderId));
+    }
+
+    @Test
+    void laggingReplica_SendsAllReadsToPrimary() throws SQLException {
+        Long orderId = as(WRITER, () -> orderService.createOrder(WRITER, newOrder()).getOrderId());
+
+        setReplicaLag(3600);
+        assertTrue(routingDataSource.isReplicaLagging());
+        assertTrue(visibleTo(READER, orderId));
+
+        setReplicaLag(0);
+        assertFalse(routingDataSource.isReplicaLagging());
+        assertFalse(visibleTo(READER, orderId));
+    }
+
+    // Заказ по id загружается в общий кэш, поэтому читается из основной базы даже при отстающей реплике
+    @Test
+    void cachedOrderLoads_ReadFromPrimary() {
+        Long orderId = as(WRITER, () -> orderService.createOrder(WRITER, newOrder()).getOrderId());
+
+        assertFalse(visibleTo(READER, orderId));
+        assertEquals(orderId, as(READER, () -> orderService.getOrderView(READER, orderId)).orderId());
+        assertEquals(orderId, as(READER, () -> orderService.getOrder(READER, orderId)).getOrderId());
+    }
+
+    // HTTP-запрос держит один EntityManager (open-in-view), но соединение - только на время транзакции:
+    // заказ, которого нет в кэше, читается и изменяется в одном запросе, изменение - в основной базе
+    @Test
+    void patchOfUncachedOrder_WritesToPrimary() throws Exception {
+        Long orderId = as(WRITER, () -> orderService.createOrder(WRITER, newOrder()).getOrderId());
+        replicate();
+        cacheManager.getCache(CacheConfig.ORDERS_CACHE).evict(orderId);
+        orderService.resolveUser(PATCHER);
+
+        mockMvc.perform(patch("/orders/" + orderId)
+                        .with(user(PATCHER).roles("ADMIN"))
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/customerName\", \"value\": \"Patched\"}]"))
+                .andExpect(status().isOk());
+
+        assertEquals("Patched", customerName(PRIMARY_URL, orderId));
+        assertEquals("Replica", customerName(REPLICA_URL, orderId));
+    }
+
+    // Ключ идемпотентности ищется read-only транзакцией (с реплики), заказ создается следующей
+    // транзакцией того же запроса и должен попасть в основную базу
+    @Test
+    void idempotentCreateAfterReplicaRead_WritesToPrimary() throws Exception {
+        // Пользователь уже в кэше: первое соединение запроса берет поиск ключа
+        orderService.resolveUser(CLIENT);
+        String response = mockMvc.perform(post("/orders")
+                        .with(user(CLIENT).roles("USER"))
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, "replica-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(OrderDTO.fromEntity(newOrder()))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(response).get("orderId").asLong();
+
+        assertEquals("Replica", customerName(PRIMARY_URL, orderId));
+        assertEquals(0, count(REPLICA_URL, "SELECT COUNT(*) FROM orders WHERE order_id = " + orderId));
+        assertEquals(0, count(REPLICA_URL, "SELECT COUNT(*) FROM idempotent_requests"));
+    }
+
+    private static String customerName(String url, long orderId) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT customer_name FROM orders WHERE order_id = " + orderId)) {
+            rows.next();
+            return rows.getString(1);
+        }
+    }
+
+    private static long count(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private boolean visibleTo(String username, Long orderId) {
+        List<OrderSnapshot> orders = as(username, () ->
+                orderService.getOrderViews(username, null, null, null, null, OrderService.MAX_PAGE_SIZE));
+        return orders.stream().anyMatch(order -> order.orderId().equals(orderId));
+    }
+
+    private static <T> T as(String username, Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Копирует основную базу в реплику
+    private void replicate() throws SQLException {
+        String script = tempDir.resolve("primary.sql").toString().replace('\\', '/');
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement()) {
+            statement.execute("SCRIPT TO '" + script + "'");
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + script + "'");
+        }
+    }
+
+    private void setReplicaLag(int seconds) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds INT)");
+            statement.execute("DELETE FROM replica_lag");
+            statement.execute("INSERT INTO replica_lag VALUES (" + seconds + ")");
+        }
+        routingDataSource.checkReplicaLag();
+    }
+
+    private void createUser(String username, User.Role role) {
+        if (userRepository.findByUsername(username).isEmpty()) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("password");
+            user.setRole(role);
+            userRepository.save(user);
+        }
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setCustomerName("Replica");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("10.00"));
+        order.getProducts().add(new Product("Product", new BigDecimal("10.00"), 1));
+        return order;
+    }
+}
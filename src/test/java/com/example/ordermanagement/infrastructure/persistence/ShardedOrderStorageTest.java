@@ -0,0 +1,255 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Три базы H2 вместо трех шардов. Где лежат строки, проверяется напрямую по JDBC в базе каждого шарда.
+@SpringBootTest(properties = {
+        "orders.sharding.enabled=true",
+        "orders.sharding.urls=" + ShardedOrderStorageTest.SHARD_0 + "," + ShardedOrderStorageTest.SHARD_1
+                + "," + ShardedOrderStorageTest.SHARD_2,
+        "orders.sharding.maximum-pool-size=4",
+        "orders.events.relay-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class ShardedOrderStorageTest {
+
+    static final String SHARD_0 = "jdbc:h2:mem:sharded-orders-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:sharded-orders-1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:sharded-orders-2;DB_CLOSE_DELAY=-1";
+    private static final List<String> SHARDS = List.of(SHARD_0, SHARD_1, SHARD_2);
+
+    private static final String ADMIN = "sharded-admin";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    // Пользователь на каждом шарде
+    private final Map<Integer, User> usersByShard = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        createUser(ADMIN, User.Role.ADMIN);
+        for (int i = 0; usersByShard.size() < SHARDS.size(); i++) {
+            User user = createUser("sharded-user-" + i, User.Role.USER);
+            usersByShard.putIfAbsent(orderShards.shardOfUser(user.getId()), user);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void orders_AreStoredOnOwnersShard() throws SQLException {
+        assertEquals(SHARDS.size(), orderShards.count());
+        for (Map.Entry<Integer, User> entry : usersByShard.entrySet()) {
+            int shard = entry.getKey();
+            String username = entry.getValue().getUsername();
+            Long orderId = as(username, () -> orderService.createOrder(username, newOrder("Stored")).getOrderId());
+
+            assertEquals(shard, orderShards.shardOfOrder(orderId));
+            for (int other = 0; other < SHARDS.size(); other++) {
+                long expected = other == shard ? 1 : 0;
+                assertEquals(expected, count(other, "SELECT COUNT(*) FROM orders WHERE order_id = ?", orderId));
+                assertEquals(expected, count(other, "SELECT COUNT(*) FROM products WHERE order_id = ?", orderId));
+            }
+        }
+    }
+
+    @Test
+    void users_AreReplicatedToEveryShard() throws SQLException {
+        for (User user : usersByShard.values()) {
+            for (int shard = 0; shard < SHARDS.size(); shard++) {
+                assertEquals(1, count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", user.getId()));
+            }
+        }
+    }
+
+    @Test
+    void adminReads_MergeAllShardsByOrderId() {
+        List<Long> created = createOrderOnEachShard("Merged");
+        created.addAll(createOrderOnEachShard("Merged"));
+
+        List<Long> listed = as(ADMIN, () -> orderService.getOrders(ADMIN, null, null, null)).stream()
+                .map(Order::getOrderId)
+                .toList();
+        assertAscendingAndContains(listed, created);
+
+        List<Long> paged = new ArrayList<>();
+        Long after = null;
+        while (true) {
+            Long pageAfter = after;
+            List<Order> page = as(ADMIN, () -> orderService.getOrders(ADMIN, null, null, null, pageAfter, 2));
+            page.forEach(order -> assertFalse(order.getProducts().isEmpty()));
+            page.forEach(order -> paged.add(order.getOrderId()));
+            if (page.size() < 2) {
+                break;
+            }
+            after = page.get(page.size() - 1).getOrderId();
+        }
+        assertEquals(listed, paged);
+
+        List<Long> views = as(ADMIN, () -> orderService.getOrderViews(ADMIN, null, null, null, null,
+                OrderService.MAX_PAGE_SIZE)).stream()
+                .map(OrderSnapshot::orderId)
+                .toList();
+        assertEquals(listed, views);
+
+        List<Long> streamed = new ArrayList<>();
+        as(ADMIN, () -> orderService.streamOrders(ADMIN, null, null, null, order -> streamed.add(order.getOrderId())));
+        assertEquals(listed, streamed);
+    }
+
+    @Test
+    void userReads_GoToOwnShardOnly() throws SQLException {
+        User owner = usersByShard.get(1);
+        Long orderId = as(owner.getUsername(),
+                () -> orderService.createOrder(owner.getUsername(), newOrder("Own")).getOrderId());
+        // Заказ пользователя, по ошибке оказавшийся на чужом шарде, пользователю не виден
+        long strayId = orderId + 1_000_000;
+        update(2, "INSERT INTO orders (order_id, user_id, customer_name, status, total_price, deleted, version,"
+                        + " created_at) VALUES (?, ?, 'Stray', 'PENDING', 1.00, FALSE, 0, CURRENT_TIMESTAMP)",
+                strayId, owner.getId());
+        try {
+            List<Long> orders = as(owner.getUsername(),
+                    () -> orderService.getOrders(owner.getUsername(), null, null, null)).stream()
+                    .map(Order::getOrderId)
+                    .toList();
+            assertTrue(orders.contains(orderId));
+            assertFalse(orders.contains(strayId));
+        } finally {
+            update(2, "DELETE FROM orders WHERE order_id = ?", strayId);
+        }
+    }
+
+    @Test
+    void singleOrderOperations_RouteByOrderId() throws SQLException {
+        for (User user : usersByShard.values()) {
+            String username = user.getUsername();
+            Long orderId = as(username, () -> orderService.createOrder(username, newOrder("Routed")).getOrderId());
+
+            assertEquals(orderId, as(username, () -> orderService.getOrder(username, orderId)).getOrderId());
+
+            Order changed = newOrder("Routed");
+            changed.setStatus(Order.OrderStatus.CONFIRMED);
+            as(username, () -> orderService.updateOrder(username, orderId, changed));
+            assertEquals(Order.OrderStatus.CONFIRMED,
+                    as(username, () -> orderService.getOrderView(username, orderId)).status());
+        }
+
+        List<Long> created = createOrderOnEachShard("Deleted");
+        assertEquals(created, orderService.deleteOrders(created));
+        for (Long orderId : created) {
+            int shard = orderShards.shardOfOrder(orderId);
+            assertEquals(1, count(shard, "SELECT COUNT(*) FROM orders WHERE order_id = ? AND deleted = TRUE", orderId));
+        }
+    }
+
+    // Заказ у пользователя каждого шарда; id - по возрастанию
+    private List<Long> createOrderOnEachShard(String customerName) {
+        List<Long> orderIds = new ArrayList<>();
+        for (User user : usersByShard.values()) {
+            String username = user.getUsername();
+            orderIds.add(as(username, () -> orderService.createOrder(username, newOrder(customerName)).getOrderId()));
+        }
+        orderIds.sort(null);
+        return orderIds;
+    }
+
+    private static void assertAscendingAndContains(List<Long> orderIds, List<Long> expected) {
+        for (int i = 1; i < orderIds.size(); i++) {
+            assertTrue(orderIds.get(i - 1) < orderIds.get(i), "Order ids are not ascending: " + orderIds);
+        }
+        assertTrue(orderIds.containsAll(expected));
+    }
+
+    private static <T> T as(String username, Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static long count(int shard, String sql, Object... args) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SHARDS.get(shard), "sa", "");
+             PreparedStatement statement = prepare(connection, sql, args);
+             ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private static void update(int shard, String sql, Object... args) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SHARDS.get(shard), "sa", "");
+             PreparedStatement statement = prepare(connection, sql, args)) {
+            statement.executeUpdate();
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object... args) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < args.length; i++) {
+            statement.setObject(i + 1, args[i]);
+        }
+        return statement;
+    }
+
+    private User createUser(String username, User.Role role) {
+        return userRepository.findByUsername(username).orElseGet(() -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("password");
+            user.setRole(role);
+            return userRepository.save(user);
+        });
+    }
+
+    private static Order newOrder(String customerName) {
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalPrice(new BigDecimal("10.00"));
+        order.getProducts().add(new Product("Product", new BigDecimal("10.00"), 1));
+        return order;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ordermanagement.infrastructure.persistence;
+
+import com.example.ordermanagement.application.service.UserIdentityCache;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.model.UserIdentity;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Слушатель подключается к User только через META-INF/orm.xml: проверяется, что он срабатывает.
+// Своя база: новый контекст пересоздает схему, и общая база сбросила бы последовательности
+// под контекстами других тестов, уже закэшированными Spring
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-listener;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class UserChangeListenerTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Test
+    void userUpdate_InvalidatesCachedIdentity() {
+        User user = new User();
+        user.setUsername("listener-user");
+        user.setPassword("password");
+        user.setRole(User.Role.USER);
+        user = userRepository.save(user);
+        userIdentityCache.put(UserIdentity.of(user));
+
+        user.setRole(User.Role.ADMIN);
+        userRepository.save(user);
+
+        UserIdentity reloaded = new UserIdentity(user.getId(), user.getUsername(), User.Role.ADMIN);
+        assertEquals(Optional.of(reloaded), userIdentityCache.get(user.getUsername(), () -> Optional.of(reloaded)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ordermanagement.infrastructure.security;
+
+import com.example.ordermanagement.application.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Токены пополняются раз в 100 секунд, поэтому за время теста ведра не наполняются
+// и результат каждого запроса предсказуем.
+@SpringBootTest(properties = {
+        "orders.rate-limit.read.rate=0.01",
+        "orders.rate-limit.read.burst=2",
+        "orders.rate-limit.write.rate=0.01",
+        "orders.rate-limit.write.burst=1",
+        "orders.rate-limit.global.rate=0.01",
+        "orders.rate-limit.global.burst=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private OrderService orderService;
+
+    @Test
+    void requestsOverLimit_AreRejectedWithRetryAfter() throws Exception {
+        RequestBuilder firstRead = get("/orders").with(user("first").roles("USER"));
+        mockMvc.perform(firstRead).andExpect(status().isOk());
+        mockMvc.perform(firstRead).andExpect(status().isOk());
+        mockMvc.perform(firstRead)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"));
+
+        // Изменения считаются отдельно от чтения
+        RequestBuilder firstWrite = delete("/orders").param("ids", "1").with(user("first").roles("ADMIN"));
+        mockMvc.perform(firstWrite).andExpect(status().isOk());
+        mockMvc.perform(firstWrite).andExpect(status().isTooManyRequests());
+
+        // У другого пользователя свое ведро, но общее ведро (5 запросов) на двоих
+        RequestBuilder secondRead = get("/orders").with(user("second").roles("USER"));
+        mockMvc.perform(secondRead).andExpect(status().isOk());
+        mockMvc.perform(secondRead).andExpect(status().isOk());
+        mockMvc.perform(get("/orders").with(user("third").roles("USER"))).andExpect(status().isTooManyRequests());
+
+        // Запросы вне /orders не ограничиваются
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        assertEquals(1, throttled("read"));
+        assertEquals(1, throttled("write"));
+        assertEquals(1, throttled("global"));
+    }
+
+    @Test
+    void bucket_AllowsBurstAndRefillsOverTime() {
+        long start = 0;
+        TokenBucket bucket = new TokenBucket(10, 3, start);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(start));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire(start));
+
+        long later = start + TimeUnit.MILLISECONDS.toNanos(250);
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), bucket.tryAcquire(later));
+
+        // Долгий простой не копит токенов больше емкости ведра
+        long idle = later + TimeUnit.SECONDS.toNanos(60);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(idle));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire(idle));
+    }
+
+    @Test
+    void refundedToken_CanBeTakenAgain() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire(0));
+
+        bucket.refund();
+        assertEquals(0, bucket.tryAcquire(0));
+    }
+
+    private double throttled(String limit) {
+        return meterRegistry.get(RequestRateLimiter.THROTTLED_COUNTER).tag("limit", limit).counter().count();
+    }
+}
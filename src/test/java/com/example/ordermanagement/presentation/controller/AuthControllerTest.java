@@ -9,11 +9,13 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ==")
 @AutoConfigureMockMvc
 class AuthControllerTest {
 
@@ -45,5 +47,32 @@ class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("User authenticated: user"));
     }
-}
 
+    @Test
+    void login_WithBasicAuth_ShouldIssueBearerToken() throws Exception {
+        String token = loginAndGetToken();
+
+        mockMvc.perform(get("/orders/user-info")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Current user: user, Roles: [ROLE_USER]"));
+    }
+
+    @Test
+    void request_WithTamperedBearerToken_ShouldReturnUnauthorized() throws Exception {
+        String token = loginAndGetToken();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        mockMvc.perform(get("/orders/user-info")
+                        .header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String loginAndGetToken() throws Exception {
+        return mockMvc.perform(post("/login")
+                        .with(httpBasic("user", "password")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(AuthController.TOKEN_HEADER))
+                .andReturn().getResponse().getHeader(AuthController.TOKEN_HEADER);
+    }
+}
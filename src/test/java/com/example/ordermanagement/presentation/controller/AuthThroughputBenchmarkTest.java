@@ -0,0 +1,54 @@
+package com.example.ordermanagement.presentation.controller;
+
+import com.example.ordermanagement.LoadMeasurements;
+import com.example.ordermanagement.LoadTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Сравнивает пропускную способность одного потока (запросов в секунду на ядро)
+// для HTTP Basic (BCrypt на каждый запрос) и bearer-токена (HMAC).
+@SpringBootTest(properties = {
+        "orders.rate-limit.enabled=false",
+        "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ=="
+})
+@AutoConfigureMockMvc
+@LoadTest
+class AuthThroughputBenchmarkTest {
+
+    private static final int WARMUP_REQUESTS = 50;
+    private static final int MEASURED_REQUESTS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void bearerToken_ShouldOutperformBasicAuth() throws Exception {
+        String token = mockMvc.perform(post("/login").with(httpBasic("user", "password")))
+                .andReturn().getResponse().getHeader(AuthController.TOKEN_HEADER);
+
+        RequestBuilder basic = get("/orders/user-info").with(httpBasic("user", "password"));
+        RequestBuilder bearer = get("/orders/user-info").header("Authorization", "Bearer " + token);
+
+        double basicRate = measure(basic);
+        double bearerRate = measure(bearer);
+        LoadMeasurements.report(getClass(), "basic=%.1f req/s/core bearer=%.1f req/s/core speedup=%.1fx",
+                basicRate, bearerRate, bearerRate / basicRate);
+
+        assertTrue(bearerRate > basicRate * 2, "Bearer token path should be much faster than HTTP Basic");
+    }
+
+    private double measure(RequestBuilder request) throws Exception {
+        return LoadMeasurements.throughput(WARMUP_REQUESTS, MEASURED_REQUESTS,
+                () -> mockMvc.perform(request).andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.ordermanagement.presentation.controller;
+
+import com.example.ordermanagement.LoadMeasurements;
+import com.example.ordermanagement.LoadTest;
+import com.example.ordermanagement.infrastructure.concurrent.BackgroundThreads;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// 1000 одновременных клиентов по HTTP запрашивают список своих заказов (JDBC на каждый запрос).
+// Пишет в лог p50/p99 задержки и пропускную способность для текущего режима потоков.
+// Сравнение режимов - два запуска:
+//   mvn test -Dtest=ConcurrentClientsLoadTest -DloadTests=true
+//   mvn -Pjdk21 test -Dtest=ConcurrentClientsLoadTest -DloadTests=true -Dspring.profiles.active=virtual-threads
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "orders.rate-limit.enabled=false",
+        "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ==",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "logging.level.com.example=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@LoadTest
+class ConcurrentClientsLoadTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int WARMUP_REQUESTS = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BackgroundThreads backgroundThreads;
+
+    @Test
+    void thousandConcurrentClients_p99Latency() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+        String token = login(client);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                    long sentAt = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    latencies[next.getAndIncrement()] = System.nanoTime() - sentAt;
+                    if (status != 200) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        LoadMeasurements.report(getClass(), "threads=%s java=%d clients=%d requests=%d failures=%d"
+                        + " p50=%.1f ms p99=%.1f ms max=%.1f ms throughput=%.0f req/s",
+                backgroundThreads.isVirtual() ? "virtual" : "platform", Runtime.version().feature(),
+                CLIENTS, latencies.length, failures.get(), LoadMeasurements.percentileMillis(latencies, 0.50),
+                LoadMeasurements.percentileMillis(latencies, 0.99), latencies[latencies.length - 1] / 1e6,
+                latencies.length / seconds);
+
+        assertEquals(0, failures.get());
+    }
+
+    private String login(HttpClient client) throws Exception {
+        String credentials = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                        .header("Authorization", "Basic " + credentials)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String token = response.headers().firstValue(AuthController.TOKEN_HEADER).orElse(null);
+        assertNotNull(token);
+        return token;
+    }
+}
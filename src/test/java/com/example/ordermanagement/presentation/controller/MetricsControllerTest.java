@@ -5,16 +5,23 @@ import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Реестр Prometheus в тестах Spring Boot отключен, пока не включена наблюдаемость
+@SpringBootTest(properties = "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ==")
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 class MetricsControllerTest {
 
     @Autowired
@@ -37,6 +44,43 @@ class MetricsControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getMetrics_ShouldReturnTaggedMetersWithAllStatistics() throws Exception {
+        mockMvc.perform(get("/orders/user-info").with(user("user").roles("USER")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/metrics").param("name", "http.server.requests").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.tags.uri == '/orders/user-info')].tags.method").value("GET"))
+                .andExpect(jsonPath("$[?(@.tags.uri == '/orders/user-info')].measurements.count").value(1.0))
+                .andExpect(jsonPath("$[?(@.tags.uri == '/orders/user-info')].measurements.total").exists())
+                .andExpect(jsonPath("$[?(@.tags.uri == '/orders/user-info')].measurements.max").exists());
+    }
+
+    @Test
+    void prometheusEndpoint_ShouldExportLatencyBucketsAndPoolMetrics() throws Exception {
+        mockMvc.perform(get("/orders/user-info").with(user("user").roles("USER")))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("http_server_requests_seconds_bucket{")
+                && line.contains("uri=\"/orders/user-info\"") && line.contains("le=\"0.1\"")));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hibernate_"));
+        assertTrue(scrape.contains("cache_gets_total{cache=\"users.identity\""));
+        assertTrue(scrape.contains("orders_count{"));
+    }
+
+    @Test
+    void prometheusEndpoint_AsUser_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(user("user").roles("USER")))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void getMetrics_AsUser_ShouldReturnForbidden() throws Exception {
@@ -49,5 +93,18 @@ class MetricsControllerTest {
         mockMvc.perform(get("/metrics"))
                 .andExpect(status().isUnauthorized());
     }
-}
 
+    @Test
+    void ordersCache_ShouldExportCaffeineStatistics() {
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "orders").tag("result", "hit").functionCounter());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "orders").functionCounter());
+        assertNotNull(meterRegistry.find("cache.load.duration").tag("cache", "orders").meter());
+    }
+
+    @Test
+    void databaseLogAppender_ShouldExportCounters() {
+        assertNotNull(meterRegistry.find("logging.db.events").tag("result", "written").functionCounter());
+        assertNotNull(meterRegistry.find("logging.db.events").tag("result", "dropped").functionCounter());
+        assertNotNull(meterRegistry.find("logging.db.queue.depth").gauge());
+    }
+}
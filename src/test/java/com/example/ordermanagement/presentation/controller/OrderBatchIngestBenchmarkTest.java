@@ -0,0 +1,102 @@
+package com.example.ordermanagement.presentation.controller;
+
+import com.example.ordermanagement.LoadMeasurements;
+import com.example.ordermanagement.LoadTest;
+import com.example.ordermanagement.presentation.dto.OrderDTO;
+import com.example.ordermanagement.presentation.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Сравнивает скорость загрузки заказов (заказов в секунду) через POST /orders по одному
+// и через POST /orders/batch на H2. Оба пути аутентифицируются bearer-токеном,
+// чтобы BCrypt не заслонял стоимость записи.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "orders.rate-limit.enabled=false",
+        "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ==",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "logging.level.com.example=INFO"
+})
+@AutoConfigureMockMvc
+@LoadTest
+class OrderBatchIngestBenchmarkTest {
+
+    private static final int ORDERS = 2_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int PRODUCTS_PER_ORDER = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void batchEndpoint_ShouldIngestTenTimesFasterThanSingleOrderEndpoint() throws Exception {
+        String authorization = "Bearer " + mockMvc.perform(post("/login").with(httpBasic("user", "password")))
+                .andReturn().getResponse().getHeader(AuthController.TOKEN_HEADER);
+
+        double singleRate = ingestOneByOne(authorization);
+        double batchRate = ingestInBatches(authorization);
+        LoadMeasurements.report(getClass(), "single=%.0f orders/s batch=%.0f orders/s speedup=%.1fx",
+                singleRate, batchRate, batchRate / singleRate);
+
+        assertTrue(batchRate >= singleRate * 10, "Batch ingest should be at least 10x faster");
+    }
+
+    // Заказов в секунду; прогрев - 200 заказов
+    private double ingestOneByOne(String authorization) throws Exception {
+        String body = objectMapper.writeValueAsString(sampleOrder());
+        return LoadMeasurements.throughput(200, ORDERS, () ->
+                mockMvc.perform(post("/orders").header("Authorization", authorization)
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andExpect(status().isOk()));
+    }
+
+    // Заказов в секунду; прогрев - одна пачка
+    private double ingestInBatches(String authorization) throws Exception {
+        List<OrderDTO> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(sampleOrder());
+        }
+        String body = objectMapper.writeValueAsString(batch);
+        return BATCH_SIZE * LoadMeasurements.throughput(1, ORDERS / BATCH_SIZE, () ->
+                mockMvc.perform(post("/orders/batch").header("Authorization", authorization)
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[" + (BATCH_SIZE - 1) + "].status").value("CREATED")));
+    }
+
+    private OrderDTO sampleOrder() {
+        OrderDTO order = new OrderDTO();
+        order.setCustomerName("Upstream Customer");
+        order.setStatus("PENDING");
+        order.setTotalPrice(new BigDecimal("30.00"));
+        List<ProductDTO> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS_PER_ORDER; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(1);
+            products.add(product);
+        }
+        order.setProducts(products);
+        return order;
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.ordermanagement.presentation.controller;
 
+import com.example.ordermanagement.application.service.OrderBatchResult;
 import com.example.ordermanagement.application.service.OrderService;
+import com.example.ordermanagement.application.service.OrderStatsService;
+import com.example.ordermanagement.domain.exception.OrderVersionConflictException;
 import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderSnapshot;
+import com.example.ordermanagement.domain.model.OrderStats;
 import com.example.ordermanagement.domain.model.Product;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.model.UserIdentity;
 import com.example.ordermanagement.presentation.dto.OrderDTO;
 import com.example.ordermanagement.presentation.dto.ProductDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,18 +21,34 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@SpringBootTest
+@SpringBootTest(properties = "security.token.secret=dGVzdC1vbmx5LWJlYXJlci10b2tlbi1zaWduaW5nLWtleQ==")
 @AutoConfigureMockMvc
 class OrderControllerTest {
 
@@ -38,12 +61,15 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderStatsService orderStatsService;
+
     @Test
     @WithMockUser(roles = "USER")
     void createOrder_AsUser_ShouldCreateOrder() throws Exception {
         OrderDTO orderDTO = createSampleOrderDTO();
         Order order = OrderDTO.toEntity(orderDTO);
-        when(orderService.createOrder(any(Order.class))).thenReturn(order);
+        when(orderService.createOrder(anyString(), any(Order.class))).thenReturn(order);
 
         mockMvc.perform(post("/orders")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -52,6 +78,40 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.customerName").value("John Doe"));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void createOrder_RetriedWithIdempotencyKey_ShouldCreateOrderOnce() throws Exception {
+        OrderDTO orderDTO = createSampleOrderDTO();
+        Order order = OrderDTO.toEntity(orderDTO);
+        order.setOrderId(42L);
+        when(orderService.resolveUser("user")).thenReturn(new UserIdentity(7L, "user", User.Role.USER));
+        when(orderService.createOrder(anyString(), any(Order.class))).thenReturn(order);
+        String key = UUID.randomUUID().toString();
+
+        mockMvc.perform(post("/orders")
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, "false"))
+                .andExpect(jsonPath("$.orderId").value(42));
+        mockMvc.perform(post("/orders")
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.orderId").value(42));
+
+        orderDTO.setCustomerName("Jane Doe");
+        mockMvc.perform(post("/orders")
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderDTO)))
+                .andExpect(status().isUnprocessableEntity());
+        verify(orderService, times(1)).createOrder(anyString(), any(Order.class));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void deleteOrder_AsAdmin_ShouldDeleteOrder() throws Exception {
@@ -66,6 +126,24 @@ class OrderControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deleteOrders_AsAdmin_ShouldReturnDeletedIds() throws Exception {
+        when(orderService.deleteOrders(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        mockMvc.perform(delete("/orders").param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1]").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void deleteOrders_AsUser_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(delete("/orders").param("ids", "1"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void getAllOrders_WithoutAuth_ShouldReturnUnauthorized() throws Exception {
         mockMvc.perform(get("/orders"))
@@ -76,13 +154,258 @@ class OrderControllerTest {
     @WithMockUser(roles = "USER")
     void getOrderById_AsUser_ShouldReturnOrder() throws Exception {
         Order order = createSampleOrder();
-        when(orderService.getOrderById(1L)).thenReturn(order);
+        when(orderService.getOrderView(anyString(), eq(1L))).thenReturn(OrderSnapshot.of(order));
 
         mockMvc.perform(get("/orders/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.customerName").value("John Doe"));
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getOrders_FullPage_ShouldReturnNextCursor() throws Exception {
+        Order first = createSampleOrder();
+        Order second = createSampleOrder();
+        second.setOrderId(7L);
+        when(orderService.getOrderViews(eq("user"), isNull(), isNull(), isNull(), eq(0L), eq(2)))
+                .thenReturn(Arrays.asList(OrderSnapshot.of(first), OrderSnapshot.of(second)));
+
+        mockMvc.perform(get("/orders").param("after", "0").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.NEXT_CURSOR_HEADER, "7"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getOrders_LastPage_ShouldNotReturnNextCursor() throws Exception {
+        when(orderService.getOrderViews(eq("user"), isNull(), isNull(), isNull(), isNull(), eq(100)))
+                .thenReturn(List.of(OrderSnapshot.of(createSampleOrder())));
+
+        mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(OrderController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @SuppressWarnings("unchecked")
+    void exportOrders_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Order> consumer = invocation.getArgument(4);
+            consumer.accept(createSampleOrder());
+            consumer.accept(createSampleOrder());
+            return 2L;
+        }).when(orderService).streamOrders(eq("user"), isNull(), isNull(), isNull(), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("John Doe", objectMapper.readTree(lines[0]).get("customerName").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @SuppressWarnings("unchecked")
+    void createOrders_ShouldReturnPerItemResultsInRequestOrder() throws Exception {
+        OrderDTO badStatus = createSampleOrderDTO();
+        badStatus.setStatus("SHIPPED");
+        when(orderService.createOrders(eq("user"), any(List.class))).thenReturn(List.of(
+                OrderBatchResult.created(0, 10L),
+                OrderBatchResult.rejected(1, "Total price does not match the sum of product prices")));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                List.of(createSampleOrderDTO(), badStatus, createSampleOrderDTO()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].orderId").value(10))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("Invalid order status: SHIPPED"))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    @SuppressWarnings("unchecked")
+    void createOrders_ShouldRejectItemsThatFailValidation() throws Exception {
+        OrderDTO blankProductName = createSampleOrderDTO();
+        blankProductName.getProducts().get(0).setName(" ");
+        OrderDTO zeroQuantity = createSampleOrderDTO();
+        zeroQuantity.getProducts().get(0).setQuantity(0);
+        OrderDTO negativePrice = createSampleOrderDTO();
+        negativePrice.getProducts().get(0).setPrice(BigDecimal.valueOf(-100));
+        negativePrice.setTotalPrice(BigDecimal.valueOf(-100));
+        OrderDTO longCustomerName = createSampleOrderDTO();
+        longCustomerName.setCustomerName("x".repeat(101));
+        OrderDTO noProducts = createSampleOrderDTO();
+        noProducts.setProducts(List.of());
+        when(orderService.createOrders(eq("user"), any(List.class)))
+                .thenReturn(List.of(OrderBatchResult.created(0, 10L)));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(blankProductName, zeroQuantity,
+                                negativePrice, longCustomerName, noProducts, null, createSampleOrderDTO()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(jsonPath("$[0].status").value("REJECTED"))
+                .andExpect(jsonPath("$[0].error").value("products[0].name: Product name cannot be blank"))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("products[0].quantity: Quantity must be positive"))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$[3].status").value("REJECTED"))
+                .andExpect(jsonPath("$[3].error").value("customerName: Customer name must not exceed 100 characters"))
+                .andExpect(jsonPath("$[4].status").value("REJECTED"))
+                .andExpect(jsonPath("$[4].error").value("products: Order must contain at least one product"))
+                .andExpect(jsonPath("$[5].status").value("REJECTED"))
+                .andExpect(jsonPath("$[5].error").value("Order cannot be null"))
+                .andExpect(jsonPath("$[6].index").value(6))
+                .andExpect(jsonPath("$[6].status").value("CREATED"))
+                .andExpect(jsonPath("$[6].orderId").value(10));
+        verify(orderService).createOrders(eq("user"), argThat(orders -> orders.size() == 1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void patchOrder_ShouldApplyDeltaToCurrentOrder() throws Exception {
+        when(orderService.getOrder("user", 1L)).thenReturn(createSampleOrder());
+        when(orderService.updateOrder(eq("user"), eq(1L), any(Order.class), isNull())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(2);
+            order.setOrderId(1L);
+            return order;
+        });
+
+        String patch = "[" +
+                "{\"op\": \"test\", \"path\": \"/products/0/productId\", \"value\": 1}," +
+                "{\"op\": \"replace\", \"path\": \"/products/0/quantity\", \"value\": 2}," +
+                "{\"op\": \"replace\", \"path\": \"/totalPrice\", \"value\": 200}" +
+                "]";
+
+        mockMvc.perform(patch("/orders/1")
+                        .contentType("application/json-patch+json")
+                        .content(patch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerName").value("John Doe"))
+                .andExpect(jsonPath("$.products[0].productId").value(1))
+                .andExpect(jsonPath("$.products[0].quantity").value(2))
+                .andExpect(jsonPath("$.totalPrice").value(200));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void patchOrder_FailedTestOperation_ShouldReturnBadRequest() throws Exception {
+        when(orderService.getOrder("user", 1L)).thenReturn(createSampleOrder());
+
+        mockMvc.perform(patch("/orders/1")
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"test\", \"path\": \"/status\", \"value\": \"DELIVERED\"}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void patchOrder_InvalidResult_ShouldReturnBadRequest() throws Exception {
+        when(orderService.getOrder("user", 1L)).thenReturn(createSampleOrder());
+
+        mockMvc.perform(patch("/orders/1")
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"remove\", \"path\": \"/customerName\"}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getOrderById_ShouldReturnVersionAsETag() throws Exception {
+        Order order = createSampleOrder();
+        order.setVersion(3L);
+        when(orderService.getOrderView("user", 1L)).thenReturn(OrderSnapshot.of(order));
+
+        mockMvc.perform(get("/orders/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void updateOrder_WithIfMatch_ShouldPassExpectedVersion() throws Exception {
+        Order updated = createSampleOrder();
+        updated.setVersion(4L);
+        when(orderService.updateOrder(eq("user"), eq(1L), any(Order.class), eq(3L))).thenReturn(updated);
+
+        mockMvc.perform(put("/orders/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createSampleOrderDTO())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void updateOrder_StaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        when(orderService.updateOrder(eq("user"), eq(1L), any(Order.class), eq(2L)))
+                .thenThrow(new OrderVersionConflictException(1L));
+
+        mockMvc.perform(put("/orders/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createSampleOrderDTO())))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void patchOrder_StaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        Order order = createSampleOrder();
+        order.setVersion(5L);
+        when(orderService.getOrder("user", 1L)).thenReturn(order);
+
+        mockMvc.perform(patch("/orders/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/customerName\", \"value\": \"Jane\"}]"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getOrderStats_ShouldReturnAggregates() throws Exception {
+        OrderStats stats = new OrderStats(Order.OrderStatus.CONFIRMED, 1L, Instant.parse("2024-01-01T00:00:00Z"), 2,
+                new BigDecimal("30.00"), new BigDecimal("15.00"), new BigDecimal("10.00"), new BigDecimal("20.00"));
+        when(orderStatsService.getStats("user", OrderStats.Period.MONTH, Instant.parse("2024-01-01T00:00:00Z"), null))
+                .thenReturn(List.of(stats));
+
+        mockMvc.perform(get("/orders/stats")
+                        .param("period", "month")
+                        .param("from", "2024-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CONFIRMED"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[0].sum").value(30.00))
+                .andExpect(jsonPath("$[0].avg").value(15.00));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getOrderStats_InvalidPeriod_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/orders/stats").param("period", "week"))
+                .andExpect(status().isBadRequest());
+    }
+
     private OrderDTO createSampleOrderDTO() {
         OrderDTO orderDTO = new OrderDTO();
         orderDTO.setCustomerName("John Doe");
@@ -0,0 +1,197 @@
+package com.example.ordermanagement.presentation.controller;
+
+import com.example.ordermanagement.application.event.OrderEventsDispatched;
+import com.example.ordermanagement.domain.event.OrderStatusChangedEvent;
+import com.example.ordermanagement.domain.model.Order;
+import com.example.ordermanagement.domain.model.OrderOutboxEvent;
+import com.example.ordermanagement.domain.model.User;
+import com.example.ordermanagement.domain.repository.OrderOutboxRepository;
+import com.example.ordermanagement.domain.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderStatusStreamTest {
+
+    private static final String USERNAME = "stream-user";
+    private static final String OTHER_USERNAME = "stream-other";
+    private static final String ADMIN_USERNAME = "stream-admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        createUser(USERNAME, User.Role.USER);
+        createUser(OTHER_USERNAME, User.Role.USER);
+        createUser(ADMIN_USERNAME, User.Role.ADMIN);
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, roles = "USER")
+    void user_ReceivesOnlyOwnOrderChanges() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+
+        OrderOutboxEvent own = save(9001L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+        OrderOutboxEvent foreign = save(9002L, OTHER_USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        eventPublisher.publishEvent(new OrderEventsDispatched(List.of(foreign, own)));
+
+        String content = awaitContent(response, "\"orderId\":9001");
+        assertTrue(content.contains("event:" + OrderStatusStream.EVENT_NAME));
+        assertTrue(content.contains("id:" + own.getId()));
+        assertFalse(content.contains("\"orderId\":9002"));
+    }
+
+    @Test
+    @WithMockUser(username = ADMIN_USERNAME, roles = "ADMIN")
+    void admin_ReceivesAllOrderChanges() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+
+        OrderOutboxEvent first = save(9011L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+        OrderOutboxEvent second = save(9012L, OTHER_USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        eventPublisher.publishEvent(new OrderEventsDispatched(List.of(first, second)));
+
+        String content = awaitContent(response, "\"orderId\":9012");
+        assertTrue(content.contains("\"orderId\":9011"));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, roles = "USER")
+    void lastEventId_ReplaysMissedChangesCoalescedByOrder() throws Exception {
+        OrderOutboxEvent received = save(9021L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+        // Пока клиент был отключен, заказ 9021 изменился дважды, а заказ 9022 - один раз
+        save(9021L, USERNAME, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PENDING);
+        save(9022L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        OrderOutboxEvent latest = save(9021L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        save(9023L, OTHER_USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+
+        MockHttpServletResponse response = subscribe(received.getId());
+
+        // после схлопывания последним отправляется изменение заказа 9021
+        String content = awaitContent(response, "id:" + latest.getId());
+        assertEquals(1, count(content, "\"orderId\":9021"));
+        assertTrue(content.contains("\"newStatus\":\"CANCELLED\""));
+        assertFalse(content.contains("\"orderId\":9023"));
+        assertFalse(content.contains("id:" + received.getId() + "\n"));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, roles = "USER")
+    void liveEventWithLowerId_IsStillDelivered() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+
+        // id выдаются пачками, поэтому событие, закоммиченное позже, может иметь меньший id
+        OrderOutboxEvent lowerId = save(9031L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+        OrderOutboxEvent higherId = save(9032L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+        eventPublisher.publishEvent(new OrderEventsDispatched(List.of(higherId)));
+        awaitContent(response, "id:" + higherId.getId());
+        eventPublisher.publishEvent(new OrderEventsDispatched(List.of(lowerId)));
+
+        awaitContent(response, "id:" + lowerId.getId());
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, roles = "USER")
+    void lastEventId_ReplaysLaterPublishedEventWithLowerId() throws Exception {
+        Instant now = Instant.now();
+        OrderOutboxEvent publishedLater = save(9041L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED,
+                now.plusSeconds(60));
+        OrderOutboxEvent received = save(9042L, USERNAME, Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, now);
+
+        MockHttpServletResponse response = subscribe(received.getId());
+
+        String content = awaitContent(response, "id:" + publishedLater.getId());
+        assertFalse(content.contains("id:" + received.getId() + "\n"));
+    }
+
+    private MockHttpServletResponse subscribe(Long lastEventId) throws Exception {
+        var streamRequest = get("/orders/stream");
+        if (lastEventId != null) {
+            streamRequest.header("Last-Event-ID", lastEventId);
+        }
+        MvcResult result = mockMvc.perform(streamRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return result.getResponse();
+    }
+
+    // Записи outbox уже опубликованы, чтобы их не подхватил relay диспетчера
+    private OrderOutboxEvent save(Long orderId, String username, Order.OrderStatus oldStatus, Order.OrderStatus newStatus) {
+        return save(orderId, username, oldStatus, newStatus, Instant.now());
+    }
+
+    private OrderOutboxEvent save(Long orderId, String username, Order.OrderStatus oldStatus, Order.OrderStatus newStatus,
+                                  Instant publishedAt) {
+        Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+        OrderOutboxEvent event = OrderOutboxEvent.of(
+                new OrderStatusChangedEvent(orderId, userId, oldStatus, newStatus), Instant.now());
+        event.setPublishedAt(publishedAt);
+        return outboxRepository.save(event);
+    }
+
+    private void createUser(String username, User.Role role) {
+        if (userRepository.findByUsername(username).isEmpty()) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("password");
+            user.setRole(role);
+            userRepository.save(user);
+        }
+    }
+
+    // События отправляются из пула потоков потока статусов, поэтому ждем их появления в ответе
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (true) {
+            String content = response.getContentAsString();
+            if (content.contains(expected)) {
+                return content;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + expected + " in stream, got: " + content);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static int count(String content, String fragment) {
+        Matcher matcher = Pattern.compile(Pattern.quote(fragment)).matcher(content);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ordermanagement.presentation.dto;
+
+import com.example.ordermanagement.domain.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JMH: преобразования OrderDTO <-> Order и сериализация списка заказов в JSON
+// тем же ObjectMapper, что собирает Spring (Jackson2ObjectMapperBuilder).
+// Запуск: mvn -Pjmh verify -Djmh.includes=OrderDtoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDtoBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private OrderDTO dto;
+    private Order order;
+    private List<OrderDTO> dtoList;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        dto = sampleDto(lines);
+        order = OrderDTO.toEntity(dto);
+        order.setOrderId(1L);
+        dtoList = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            dtoList.add(OrderDTO.fromEntity(order));
+        }
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public Order toEntity() {
+        return OrderDTO.toEntity(dto);
+    }
+
+    @Benchmark
+    public OrderDTO fromEntity() {
+        return OrderDTO.fromEntity(order);
+    }
+
+    // Список из 100 заказов, как страница GET /orders
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtoList);
+    }
+
+    private static OrderDTO sampleDto(int lines) {
+        OrderDTO dto = new OrderDTO();
+        dto.setCustomerName("Benchmark Customer");
+        dto.setStatus("PENDING");
+        List<ProductDTO> products = new ArrayList<>(lines);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.valueOf(1999 + i, 2));
+            product.setQuantity(1 + i % 5);
+            products.add(product);
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())));
+        }
+        dto.setProducts(products);
+        dto.setTotalPrice(total);
+        return dto;
+    }
+}